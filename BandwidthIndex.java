@@ -0,0 +1,168 @@
+/*
+ * Bottleneck bandwidth index of the network (see NetworkGraph.java).
+ */
+
+import java.util.*;
+
+// Maximum spanning tree with binary lifting for O(log n) bottleneck bandwidth queries.
+// Connections are treated as undirected links, the way they are drawn on the panel. findShortestPath
+// follows edges only from source to destination, so the two give the same bandwidth only when every
+// edge also exists in the opposite direction with the same bandwidth (as in generated topologies).
+// On directed topologies use findShortestPath; this index answers the undirected question.
+class BandwidthIndex {
+    private final Map<Node, Integer> index = new HashMap<>(); // Node -> position in the arrays below
+    private final Node[] nodeAt; // Position -> node
+    private final Edge[] parentEdge; // Tree edge from each node to its parent (null for roots)
+    private final Set<Edge> treeEdges = new HashSet<>(); // Edges chosen for the spanning tree
+    private final int[] depth; // Depth of each node in its tree
+    private final int[] component; // Root of the tree each node belongs to
+    private final int[][] up; // up[k][v] = 2^k-th ancestor of v
+    private final int[][] minUp; // minUp[k][v] = smallest bandwidth on the way from v to up[k][v]
+
+    BandwidthIndex(List<Node> nodes, List<Edge> edges) {
+        int n = nodes.size();
+        nodeAt = nodes.toArray(new Node[0]);
+        for (int i = 0; i < n; i++) {
+            index.put(nodeAt[i], i);
+        }
+
+        // Kruskal's algorithm with edges in decreasing order of bandwidth
+        ArrayList<Edge> sorted = new ArrayList<>(edges);
+        sorted.sort((a, b) -> Integer.compare(b.bandwidth, a.bandwidth));
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+        ArrayList<ArrayList<Edge>> tree = new ArrayList<>();
+        for (int i = 0; i < n; i++) tree.add(new ArrayList<>());
+        for (Edge edge : sorted) {
+            Integer u = index.get(edge.source);
+            Integer v = index.get(edge.destination);
+            if (u == null || v == null) continue; // Edge to a node that is not part of the graph
+            int ru = find(parent, u), rv = find(parent, v);
+            if (ru != rv) {
+                parent[ru] = rv; // Union the two components
+                treeEdges.add(edge);
+                tree.get(u).add(edge);
+                tree.get(v).add(edge);
+            }
+        }
+
+        // Root every tree and fill in the first ancestor level with BFS
+        int log = 1;
+        while ((1 << log) < Math.max(n, 1)) log++;
+        up = new int[log][n];
+        minUp = new int[log][n];
+        depth = new int[n];
+        component = new int[n];
+        parentEdge = new Edge[n];
+        boolean[] seen = new boolean[n];
+        int[] queue = new int[n];
+        for (int root = 0; root < n; root++) {
+            if (seen[root]) continue;
+            int head = 0, tail = 0;
+            queue[tail++] = root;
+            seen[root] = true;
+            up[0][root] = root;
+            minUp[0][root] = Integer.MAX_VALUE;
+            while (head < tail) {
+                int current = queue[head++];
+                component[current] = root;
+                for (Edge edge : tree.get(current)) {
+                    int next = index.get(edge.source) == current ? index.get(edge.destination) : index.get(edge.source);
+                    if (!seen[next]) {
+                        seen[next] = true;
+                        depth[next] = depth[current] + 1;
+                        up[0][next] = current;
+                        minUp[0][next] = edge.bandwidth;
+                        parentEdge[next] = edge;
+                        queue[tail++] = next;
+                    }
+                }
+            }
+        }
+
+        // Build the remaining ancestor levels from the previous ones
+        for (int k = 1; k < log; k++) {
+            for (int v = 0; v < n; v++) {
+                int mid = up[k - 1][v];
+                up[k][v] = up[k - 1][mid];
+                minUp[k][v] = Math.min(minUp[k - 1][v], minUp[k - 1][mid]);
+            }
+        }
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]]; // Path halving
+            x = parent[x];
+        }
+        return x;
+    }
+
+    // Bottleneck bandwidth between two nodes, Integer.MIN_VALUE if they are not connected
+    int maxBandwidth(Node start, Node end) {
+        Integer a = index.get(start);
+        Integer b = index.get(end);
+        if (a == null || b == null || component[a] != component[b]) return Integer.MIN_VALUE;
+        int u = a, v = b;
+        int bottleneck = Integer.MAX_VALUE; // Same as the start node in findShortestPath
+        if (depth[u] < depth[v]) {
+            int t = u; u = v; v = t;
+        }
+        // Lift the deeper node to the same depth
+        for (int k = up.length - 1; k >= 0; k--) {
+            if (depth[u] - (1 << k) >= depth[v]) {
+                bottleneck = Math.min(bottleneck, minUp[k][u]);
+                u = up[k][u];
+            }
+        }
+        if (u == v) return bottleneck;
+        // Lift both nodes until they sit right below the LCA
+        for (int k = up.length - 1; k >= 0; k--) {
+            if (up[k][u] != up[k][v]) {
+                bottleneck = Math.min(bottleneck, Math.min(minUp[k][u], minUp[k][v]));
+                u = up[k][u];
+                v = up[k][v];
+            }
+        }
+        return Math.min(bottleneck, Math.min(minUp[0][u], minUp[0][v]));
+    }
+
+    // Tree path between two nodes (the widest path), empty if they are not connected
+    ArrayList<Node> path(Node start, Node end) {
+        ArrayList<Node> path = new ArrayList<>();
+        Integer a = index.get(start);
+        Integer b = index.get(end);
+        if (a == null || b == null || component[a] != component[b]) return path;
+        int u = a, v = b;
+        ArrayList<Node> tail = new ArrayList<>(); // Nodes climbed from the end side
+        while (depth[u] > depth[v]) {
+            path.add(nodeAt[u]);
+            u = up[0][u];
+        }
+        while (depth[v] > depth[u]) {
+            tail.add(nodeAt[v]);
+            v = up[0][v];
+        }
+        while (u != v) {
+            path.add(nodeAt[u]);
+            tail.add(nodeAt[v]);
+            u = up[0][u];
+            v = up[0][v];
+        }
+        path.add(nodeAt[u]); // The LCA
+        Collections.reverse(tail);
+        path.addAll(tail);
+        return path;
+    }
+
+    // Patches the index for a new edge, returns false if it has to be rebuilt
+    boolean edgeAdded(Edge edge) {
+        // An edge no wider than the current bottleneck between its endpoints never enters the tree
+        return maxBandwidth(edge.source, edge.destination) >= edge.bandwidth;
+    }
+
+    // Patches the index for a removed edge, returns false if it has to be rebuilt
+    boolean edgeRemoved(Edge edge) {
+        return !treeEdges.contains(edge); // Non-tree edges do not affect any answer
+    }
+}
@@ -0,0 +1,16 @@
+/*
+ * Edge (connection) of the network optimization application (see NetworkGraph.java).
+ */
+
+class Edge {
+    final Node source, destination; // Source and destination nodes
+    final int cost; // Cost of the connection
+    final int bandwidth; // Bandwidth of the connection
+
+    Edge(Node source, Node destination, int cost, int bandwidth) {
+        this.source = source;
+        this.destination = destination;
+        this.cost = cost;
+        this.bandwidth = bandwidth;
+    }
+}
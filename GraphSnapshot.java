@@ -0,0 +1,190 @@
+/*
+ * Immutable version of the network (see NetworkGraph.java).
+ */
+
+import java.util.*;
+
+// One immutable version of the network. Adjacency is stored in compressed (CSR) form for
+// both directions, and the bottleneck index is built at most once per version.
+class GraphSnapshot {
+    final long version; // Version of the graph this snapshot was taken at
+    final List<Node> nodes; // Nodes of this version (read-only)
+    final List<Edge> edges; // Edges of this version (read-only)
+    private final Map<String, Node> nodesById; // Node ID -> node
+    private final Map<Node, Integer> index = new HashMap<>(); // Node -> position in nodes
+    final int[] outStart; // Outgoing edges of node i are outEdges[outStart[i] .. outStart[i + 1])
+    final Edge[] outEdges;
+    final int[] outTarget; // Position of the destination of each outgoing edge
+    final int[] inStart; // Incoming edges of node i are inEdges[inStart[i] .. inStart[i + 1])
+    final Edge[] inEdges;
+    final int[] inSource; // Position of the source of each incoming edge
+    private volatile BandwidthIndex bandwidthIndex; // Built on first query
+
+    GraphSnapshot(long version, List<Node> nodes, List<Edge> edges, Map<String, Node> nodesById, BandwidthIndex bandwidthIndex) {
+        this.version = version;
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        this.edges = Collections.unmodifiableList(new ArrayList<>(edges));
+        this.nodesById = new HashMap<>(nodesById);
+        this.bandwidthIndex = bandwidthIndex;
+        int n = this.nodes.size();
+        for (int i = 0; i < n; i++) {
+            index.putIfAbsent(this.nodes.get(i), i);
+        }
+
+        // Two passes: count the degrees, then place every edge (edges to unknown nodes are skipped)
+        outStart = new int[n + 1];
+        inStart = new int[n + 1];
+        for (Edge edge : this.edges) {
+            Integer u = index.get(edge.source);
+            Integer v = index.get(edge.destination);
+            if (u == null || v == null) continue;
+            outStart[u + 1]++;
+            inStart[v + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            outStart[i + 1] += outStart[i];
+            inStart[i + 1] += inStart[i];
+        }
+        outEdges = new Edge[outStart[n]];
+        outTarget = new int[outStart[n]];
+        inEdges = new Edge[inStart[n]];
+        inSource = new int[inStart[n]];
+        int[] outNext = Arrays.copyOf(outStart, n);
+        int[] inNext = Arrays.copyOf(inStart, n);
+        for (Edge edge : this.edges) {
+            Integer u = index.get(edge.source);
+            Integer v = index.get(edge.destination);
+            if (u == null || v == null) continue;
+            outEdges[outNext[u]] = edge;
+            outTarget[outNext[u]++] = v;
+            inEdges[inNext[v]] = edge;
+            inSource[inNext[v]++] = u;
+        }
+    }
+
+    // Position of a node in this version, -1 if it is not part of it
+    int indexOf(Node node) {
+        Integer i = index.get(node);
+        return i == null ? -1 : i;
+    }
+
+    // Look up a node by its ID, null if there is no such node
+    Node getNode(String id) {
+        return nodesById.get(id);
+    }
+
+    // Returns the bottleneck index, building it on the first query of this version
+    BandwidthIndex bandwidthIndex() {
+        BandwidthIndex result = bandwidthIndex;
+        if (result == null) {
+            synchronized (this) {
+                result = bandwidthIndex;
+                if (result == null) {
+                    bandwidthIndex = result = new BandwidthIndex(nodes, edges);
+                }
+            }
+        }
+        return result;
+    }
+
+    // The bottleneck index if some reader already built it, otherwise null
+    BandwidthIndex builtIndex() {
+        return bandwidthIndex;
+    }
+
+    // Maximum bandwidth between two nodes in O(log n) with every connection usable both ways,
+    // Integer.MIN_VALUE if they are not connected. Matches findShortestPath only on symmetric networks.
+    int maxUndirectedBandwidth(Node start, Node end) {
+        return bandwidthIndex().maxBandwidth(start, end);
+    }
+
+    // Widest path between two nodes with every connection usable both ways, from the maximum spanning tree
+    ArrayList<Node> findUndirectedWidestPath(Node start, Node end) {
+        return bandwidthIndex().path(start, end);
+    }
+
+    // Dijkstra's algorithm to find the shortest path based on bandwidth
+    ArrayList<Node> findShortestPath(Node start, Node end) {
+        Map<Node, Integer> bandwidths = new HashMap<>(); // Stores maximum bandwidth to each node
+        Map<Node, Node> previous = new HashMap<>(); // Stores the previous node in the path
+        PriorityQueue<Node> queue = new PriorityQueue<>(Comparator.comparingInt(node -> -bandwidths.get(node))); // Fixed syntax error
+
+        for (Node node : nodes) {
+            bandwidths.put(node, Integer.MIN_VALUE); // Initialize bandwidths to minimum
+        }
+        bandwidths.put(start, Integer.MAX_VALUE); // Start node has maximum bandwidth
+        queue.add(start);
+
+        while (!queue.isEmpty()) {
+            Node current = queue.poll(); // Get the node with the highest bandwidth
+            int at = indexOf(current);
+            if (at < 0) continue; // Start node that is not part of the graph
+            for (int i = outStart[at]; i < outStart[at + 1]; i++) {
+                Edge edge = outEdges[i];
+                Node neighbor = edge.destination;
+                int newBandwidth = Math.min(bandwidths.get(current), edge.bandwidth); // Calculate new bandwidth
+                if (newBandwidth > bandwidths.get(neighbor)) {
+                    bandwidths.put(neighbor, newBandwidth); // Update bandwidth
+                    previous.put(neighbor, current); // Update previous node
+                    queue.add(neighbor); // Add neighbor to the queue
+                }
+            }
+        }
+
+        // Reconstruct the path
+        ArrayList<Node> path = new ArrayList<>();
+        for (Node at = end; at != null; at = previous.get(at)) {
+            path.add(at);
+        }
+        Collections.reverse(path); // Reverse to get the correct order
+        return path;
+    }
+
+    // Pareto frontier of (cost, latency, bandwidth) paths between two nodes
+    ArrayList<ParetoPath> findParetoPaths(Node start, Node end) {
+        return ParetoPathFinder.find(this, start, end);
+    }
+
+    // Approximate Pareto frontier: paths within a factor (1 + epsilon) of a kept path are dropped
+    ArrayList<ParetoPath> findParetoPaths(Node start, Node end, double epsilon) {
+        return ParetoPathFinder.find(this, start, end, epsilon);
+    }
+
+    // Kruskal's algorithm on edge cost: the cheapest set of edges that keeps every component connected
+    ArrayList<Edge> minimumCostTree() {
+        ArrayList<Edge> sorted = new ArrayList<>(edges);
+        sorted.sort(Comparator.comparingInt(edge -> edge.cost));
+        int[] parent = new int[nodes.size()];
+        for (int i = 0; i < parent.length; i++) parent[i] = i;
+        ArrayList<Edge> tree = new ArrayList<>();
+        for (Edge edge : sorted) {
+            int ru = indexOf(edge.source), rv = indexOf(edge.destination);
+            if (ru < 0 || rv < 0) continue;
+            while (parent[ru] != ru) ru = parent[ru] = parent[parent[ru]]; // Find with path halving
+            while (parent[rv] != rv) rv = parent[rv] = parent[parent[rv]];
+            if (ru != rv) {
+                parent[ru] = rv; // Union the two components
+                tree.add(edge);
+            }
+        }
+        return tree;
+    }
+
+    // Calculate total cost of the network
+    int calculateTotalCost() {
+        int totalCost = 0;
+        for (Edge edge : edges) {
+            totalCost += edge.cost; // Sum up the costs of all edges
+        }
+        return totalCost;
+    }
+
+    // Calculate total latency of the network
+    int calculateTotalLatency() {
+        int totalLatency = 0;
+        for (Edge edge : edges) {
+            totalLatency += 1000 / edge.bandwidth; // Latency is inversely proportional to bandwidth
+        }
+        return totalLatency;
+    }
+}
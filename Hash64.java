@@ -0,0 +1,19 @@
+/*
+ * 64-bit string hash shared by the hashtag sketches (HeavyHitters.java) and the crawler's
+ * URL frontier (UrlFrontier.java).
+ */
+
+class Hash64 {
+    // 64-bit FNV-1a over the UTF-16 chars, finished with a MurmurHash3 mix
+    static long of(CharSequence item, long seed) {
+        long hash = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < item.length(); i++) {
+            hash = (hash ^ item.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Hashtag counts indexed by dictionary id (see HashtagTokenizer.java).
+ */
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+class HashtagCounts implements IntConsumer {
+    final HashtagDictionary dictionary; // Names of the counted ids
+    private final HashtagTokenizer tokenizer;
+    int[] counts = new int[64]; // counts[id] = occurrences of hashtag id
+
+    HashtagCounts(HashtagDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.tokenizer = new HashtagTokenizer(dictionary);
+    }
+
+    @Override
+    public void accept(int id) {
+        if (id >= counts.length) counts = Arrays.copyOf(counts, Math.max(counts.length * 2, id + 1));
+        counts[id]++;
+    }
+
+    void add(CharSequence text) {
+        tokenizer.tokenize(text, this);
+    }
+
+    void add(CharSequence text, int from, int to) {
+        tokenizer.tokenize(text, from, to, this);
+    }
+
+    void add(byte[] utf8, int from, int to) {
+        tokenizer.tokenize(utf8, from, to, this);
+    }
+
+    // Add the counts of another table, which may use its own dictionary
+    void addAll(HashtagCounts other) {
+        int ids = Math.min(other.dictionary.size(), other.counts.length);
+        for (int otherId = 0; otherId < ids; otherId++) {
+            if (other.counts[otherId] == 0) continue;
+            int id = dictionary.id(other.dictionary, otherId);
+            if (id >= counts.length) counts = Arrays.copyOf(counts, Math.max(counts.length * 2, id + 1));
+            counts[id] += other.counts[otherId];
+        }
+    }
+
+    int count(String hashtag) {
+        int id = dictionary.find(hashtag);
+        return id < 0 || id >= counts.length ? 0 : counts[id];
+    }
+
+    // The k most frequent hashtags, higher count first and then alphabetically
+    List<Map.Entry<String, Integer>> top(int k) {
+        if (k <= 0) return new ArrayList<>(); // The heap below needs room for at least one hashtag
+        Comparator<Integer> ranking = (a, b) -> counts[a] != counts[b]
+                ? Integer.compare(counts[b], counts[a]) : dictionary.hashtag(a).compareTo(dictionary.hashtag(b));
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1, ranking.reversed()); // Weakest of the best k on top
+        int ids = Math.min(dictionary.size(), counts.length);
+        for (int id = 0; id < ids; id++) {
+            if (counts[id] == 0) continue;
+            if (heap.size() == k && ranking.compare(id, heap.peek()) >= 0) continue; // Cannot make the top k
+            heap.offer(id);
+            if (heap.size() > k) heap.poll();
+        }
+        List<Map.Entry<String, Integer>> result = new ArrayList<>();
+        while (!heap.isEmpty()) {
+            int id = heap.poll();
+            result.add(new AbstractMap.SimpleImmutableEntry<>(dictionary.hashtag(id), counts[id]));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Dictionary of hashtags with int ids, stored in one char[] arena (see HashtagTokenizer.java).
+ */
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+class HashtagDictionary {
+    char[] chars = new char[1024]; // All hashtags back to back
+    int[] offsets = new int[65]; // Hashtag id occupies chars[offsets[id] .. offsets[id + 1])
+    int[] hashes = new int[64]; // hashes[id] = hash of hashtag id
+    private int[] slots = new int[128]; // Open-addressing table of id + 1, 0 = empty
+    private int size = 0; // Number of hashtags
+
+    int size() {
+        return size;
+    }
+
+    // Hashtag with the given id
+    String hashtag(int id) {
+        return new String(chars, offsets[id], offsets[id + 1] - offsets[id]);
+    }
+
+    static int hash(CharSequence text, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        return hash;
+    }
+
+    // Id of text[from, to), added to the dictionary if it is new
+    int id(CharSequence text, int from, int to, int hash) {
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) return add(text, null, from, to, hash, slot);
+            if (hashes[id] == hash && matches(id, text, from, to)) return id;
+        }
+    }
+
+    // Id of the ASCII bytes utf8[from, to), added to the dictionary if it is new
+    int id(byte[] utf8, int from, int to, int hash) {
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) return add(null, utf8, from, to, hash, slot);
+            if (hashes[id] == hash && matches(id, utf8, from, to)) return id;
+        }
+    }
+
+    // Id in this dictionary of hashtag `id` of another dictionary, added if it is new
+    int id(HashtagDictionary other, int id) {
+        int from = other.offsets[id], to = other.offsets[id + 1];
+        return id(CharBuffer.wrap(other.chars, 0, to), from, to, other.hashes[id]);
+    }
+
+    // Id of the hashtag, or -1 if it was never seen
+    int find(String hashtag) {
+        int hash = hashtag.hashCode();
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) return -1;
+            if (hashes[id] == hash && matches(id, hashtag, 0, hashtag.length())) return id;
+        }
+    }
+
+    private boolean matches(int id, CharSequence text, int from, int to) {
+        int start = offsets[id];
+        if (offsets[id + 1] - start != to - from) return false;
+        for (int i = from; i < to; i++) {
+            if (chars[start + i - from] != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private boolean matches(int id, byte[] utf8, int from, int to) {
+        int start = offsets[id];
+        if (offsets[id + 1] - start != to - from) return false;
+        for (int i = from; i < to; i++) {
+            if (chars[start + i - from] != utf8[i]) return false;
+        }
+        return true;
+    }
+
+    // Store a new hashtag from either text or utf8 in the given empty slot
+    private int add(CharSequence text, byte[] utf8, int from, int to, int hash, int slot) {
+        int id = size++;
+        if (id + 1 == hashes.length) {
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        int start = offsets[id];
+        int length = to - from;
+        if (start + length > chars.length) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, start + length));
+        }
+        for (int i = 0; i < length; i++) {
+            chars[start + i] = text != null ? text.charAt(from + i) : (char) utf8[from + i];
+        }
+        offsets[id + 1] = start + length;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+        if (size * 2 > slots.length) grow();
+        return id;
+    }
+
+    // Double the table and re-insert every id by its stored hash
+    private void grow() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = id + 1;
+        }
+    }
+
+    // Spread the bits of String.hashCode() before masking
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Allocation-Free Hashtag Tokenizer with dictionary encoding (see TrendingHashtags4b.java).
+ *
+ * The regex "#\w+" allocates a Matcher per tweet and a String per hashtag, and the counts are
+ * boxed Integers in a HashMap. Here every hashtag is turned into a small int id instead, and the
+ * counts live in an int[] indexed by that id.
+ *
+ * Algorithm:
+ * 1. Scanning (HashtagTokenizer):
+ *    - A hand-written loop finds the same spans as "#\w+": a '#' followed by one or more
+ *      ASCII letters, digits or '_'.
+ *    - The span is hashed while it is scanned (the same hash as String.hashCode()), so the
+ *      hashtag is never copied.
+ *    - Text can be a CharSequence or UTF-8 bytes. Hashtag characters are ASCII, so a byte of a
+ *      multi-byte UTF-8 character never belongs to a hashtag and bytes need no decoding.
+ *
+ * 2. Dictionary (HashtagDictionary):
+ *    - Open addressing with linear probing over an int[] of ids. The characters of all hashtags
+ *      are stored back to back in one char[] arena, with offsets[id] .. offsets[id + 1] per id.
+ *    - A lookup compares the span against the arena in place. Only a hashtag seen for the first
+ *      time is copied, into the arena.
+ *    - The table doubles once it is half full, reusing the stored hashes.
+ *
+ * 3. Counting (HashtagCounts):
+ *    - counts[id] is incremented for every hashtag. Top-k uses a bounded heap over the ids.
+ *    - Tables with different dictionaries are merged by looking up every hashtag of one
+ *      dictionary in the other (see ShardedHashtagCounter).
+ *
+ * HashtagDictionary and HashtagCounts are in their own files, since other classes use them too.
+ */
+
+import java.util.function.IntConsumer;
+
+class HashtagTokenizer {
+    private static final boolean[] WORD = new boolean[128]; // ASCII characters matched by \w
+    static {
+        for (char c = 'a'; c <= 'z'; c++) WORD[c] = true;
+        for (char c = 'A'; c <= 'Z'; c++) WORD[c] = true;
+        for (char c = '0'; c <= '9'; c++) WORD[c] = true;
+        WORD['_'] = true;
+    }
+
+    final HashtagDictionary dictionary; // Where hashtag ids come from
+
+    HashtagTokenizer(HashtagDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    private static boolean isWord(int c) {
+        return c >= 0 && c < 128 && WORD[c];
+    }
+
+    // Calls ids.accept(id) for every hashtag in the text, in order
+    void tokenize(CharSequence text, IntConsumer ids) {
+        tokenize(text, 0, text.length(), ids);
+    }
+
+    // Same for the characters text[from, to)
+    void tokenize(CharSequence text, int from, int to, IntConsumer ids) {
+        int i = from;
+        while (i < to) {
+            if (text.charAt(i) != '#' || i + 1 == to || !isWord(text.charAt(i + 1))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            int hash = '#';
+            i++;
+            while (i < to && isWord(text.charAt(i))) {
+                hash = 31 * hash + text.charAt(i);
+                i++;
+            }
+            ids.accept(dictionary.id(text, start, i, hash));
+        }
+    }
+
+    // Same as tokenize(CharSequence, ...) for the UTF-8 bytes utf8[from, to)
+    void tokenize(byte[] utf8, int from, int to, IntConsumer ids) {
+        int i = from;
+        while (i < to) {
+            if (utf8[i] != '#' || i + 1 == to || !isWord(utf8[i + 1])) {
+                i++;
+                continue;
+            }
+            int start = i;
+            int hash = '#';
+            i++;
+            while (i < to && isWord(utf8[i])) {
+                hash = 31 * hash + utf8[i];
+                i++;
+            }
+            ids.accept(dictionary.id(utf8, start, i, hash));
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Streaming Trend Engine for hashtags (see TrendingHashtags4b.java).
+ *
+ * Tweets are ingested continuously, and the current top-k hashtags of a sliding time window
+ * can be read at any moment without sorting all counts.
+ *
+ * Algorithm:
+ * 1. Time Buckets:
+ *    - Time is cut into buckets of a fixed width (for example one day). The window is the newest
+ *      `bucketCount` buckets, and every bucket keeps its own hashtag -> count map in a ring.
+ *    - windowCounts holds the sum over all buckets in the window.
+ *    - When time moves into a new bucket, the oldest bucket leaves the window. Its counts are
+ *      subtracted from windowCounts and its slot in the ring is reused.
+ *
+ * 2. Top-k:
+ *    - `top` holds the current top-k hashtags, ordered by count (descending) and then by name.
+ *    - Adding a hashtag raises only its own count, so only that hashtag can enter the top-k.
+ *      It replaces the last entry if it now ranks higher, which costs O(k).
+ *    - Expiring a bucket lowers many counts at once, so the top-k is rebuilt with a bounded
+ *      min-heap of size k over windowCounts. This happens once per bucket.
+ *    - trending() copies the top-k list, which is O(k).
+ *
+ * 3. Checkpoints (see TrendCheckpoint.java):
+ *    - Every ring slot has a change counter. state() copies only the slots that changed since the
+ *      previous state and shares the copies of the other slots, so taking a state on the ingest
+ *      thread usually copies just the newest bucket.
+ */
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+class HashtagTrends {
+    private static final Pattern HASHTAG = Pattern.compile("#\\w+");
+
+    private final long bucketSeconds; // Width of one time bucket
+    private final int bucketCount; // Buckets in the window
+    private final int k; // Number of trending hashtags to keep
+    private final HashMap<String, Integer>[] buckets; // Counts per bucket, buckets[b % bucketCount]
+    private final HashMap<String, Integer> windowCounts = new HashMap<>(); // Counts over the whole window
+    private final ArrayList<String> top = new ArrayList<>(); // Current top-k, best first
+    private long newestBucket = Long.MIN_VALUE; // Index of the newest bucket, none yet
+    private final int[] slotChanges; // slotChanges[s] goes up whenever buckets[s] changes
+
+    // Order of the trending list: higher count first, then alphabetically
+    private final Comparator<String> ranking = (a, b) -> {
+        int countA = windowCounts.getOrDefault(a, 0), countB = windowCounts.getOrDefault(b, 0);
+        return countA != countB ? Integer.compare(countB, countA) : a.compareTo(b);
+    };
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    HashtagTrends(long bucketSeconds, int bucketCount, int k) {
+        if (bucketSeconds <= 0 || bucketCount <= 0 || k <= 0) {
+            throw new IllegalArgumentException("Bucket width, bucket count and k must be positive");
+        }
+        this.bucketSeconds = bucketSeconds;
+        this.bucketCount = bucketCount;
+        this.k = k;
+        this.buckets = new HashMap[bucketCount];
+        this.slotChanges = new int[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new HashMap<>();
+        }
+    }
+
+    // Tweet dates are days ("yyyy-MM-dd"), counted from the start of the day
+    static long epochSecond(Tweet tweet) {
+        return LocalDate.parse(tweet.date).toEpochDay() * 86400L;
+    }
+
+    void add(Tweet tweet) {
+        long time = epochSecond(tweet);
+        Matcher matcher = HASHTAG.matcher(tweet.text);
+        while (matcher.find()) {
+            add(matcher.group(), time);
+        }
+    }
+
+    // Count one hashtag at the given time (epoch seconds). Times older than the window are ignored.
+    void add(String hashtag, long time) {
+        long bucket = Math.floorDiv(time, bucketSeconds);
+        advanceToBucket(bucket);
+        if (bucket <= newestBucket - bucketCount) return; // Already expired
+
+        int slot = (int) Math.floorMod(bucket, (long) bucketCount);
+        buckets[slot].merge(hashtag, 1, Integer::sum);
+        slotChanges[slot]++;
+        windowCounts.merge(hashtag, 1, Integer::sum);
+        raise(hashtag);
+    }
+
+    // Move the window forward so that it ends at the given time, expiring old buckets
+    void advanceTo(long time) {
+        advanceToBucket(Math.floorDiv(time, bucketSeconds));
+    }
+
+    private void advanceToBucket(long bucket) {
+        if (newestBucket == Long.MIN_VALUE) {
+            newestBucket = bucket;
+            return;
+        }
+        if (bucket <= newestBucket) return;
+
+        long steps = Math.min(bucket - newestBucket, bucketCount); // Past bucketCount steps everything has expired
+        boolean expired = false;
+        for (long b = bucket - steps + 1; b <= bucket; b++) {
+            int index = (int) Math.floorMod(b, (long) bucketCount);
+            HashMap<String, Integer> slot = buckets[index];
+            if (!slot.isEmpty()) slotChanges[index]++;
+            for (Map.Entry<String, Integer> entry : slot.entrySet()) {
+                int expiredCount = entry.getValue();
+                // Subtract the expired counts, dropping hashtags that left the window entirely
+                windowCounts.computeIfPresent(entry.getKey(), (tag, count) -> count == expiredCount ? null : count - expiredCount);
+                expired = true;
+            }
+            slot.clear();
+        }
+        newestBucket = bucket;
+        if (expired) rebuildTop();
+    }
+
+    // A hashtag's count went up by one: it can only move up in the top-k or enter it
+    private void raise(String hashtag) {
+        int position = top.indexOf(hashtag);
+        if (position < 0) {
+            if (top.size() == k) {
+                if (ranking.compare(hashtag, top.get(k - 1)) >= 0) return; // Still ranks below the top-k
+                top.remove(k - 1);
+            }
+            top.add(hashtag);
+            position = top.size() - 1;
+        }
+        while (position > 0 && ranking.compare(top.get(position), top.get(position - 1)) < 0) {
+            Collections.swap(top, position, position - 1);
+            position--;
+        }
+    }
+
+    // Keep the k best hashtags in a min-heap whose root is the weakest of them
+    private void rebuildTop() {
+        PriorityQueue<String> heap = new PriorityQueue<>(k + 1, ranking.reversed());
+        for (String hashtag : windowCounts.keySet()) {
+            heap.offer(hashtag);
+            if (heap.size() > k) heap.poll();
+        }
+        top.clear();
+        while (!heap.isEmpty()) {
+            top.add(heap.poll());
+        }
+        Collections.reverse(top);
+    }
+
+    // Read-only copy of the window for checkpoints. Slots that did not change since `previous`
+    // share its maps, which are never modified once they belong to a State.
+    static class State {
+        final long bucketSeconds;
+        final int bucketCount;
+        final int k;
+        final long newestBucket; // Long.MIN_VALUE if nothing was added yet
+        final Map<String, Integer>[] buckets; // Counts per ring slot
+        final int[] slotChanges; // Change counters the copies were taken at
+
+        State(long bucketSeconds, int bucketCount, int k, long newestBucket, Map<String, Integer>[] buckets, int[] slotChanges) {
+            this.bucketSeconds = bucketSeconds;
+            this.bucketCount = bucketCount;
+            this.k = k;
+            this.newestBucket = newestBucket;
+            this.buckets = buckets;
+            this.slotChanges = slotChanges;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    State state(State previous) {
+        boolean reuse = previous != null && previous.bucketCount == bucketCount;
+        Map<String, Integer>[] copies = new Map[bucketCount];
+        for (int slot = 0; slot < bucketCount; slot++) {
+            boolean unchanged = reuse && previous.slotChanges[slot] == slotChanges[slot];
+            copies[slot] = unchanged ? previous.buckets[slot] : Collections.unmodifiableMap(new HashMap<>(buckets[slot]));
+        }
+        return new State(bucketSeconds, bucketCount, k, newestBucket, copies, slotChanges.clone());
+    }
+
+    // Engine with the window of a state, as it was when the state was taken
+    static HashtagTrends restore(State state) {
+        HashtagTrends trends = new HashtagTrends(state.bucketSeconds, state.bucketCount, state.k);
+        trends.newestBucket = state.newestBucket;
+        for (int slot = 0; slot < state.bucketCount; slot++) {
+            trends.buckets[slot].putAll(state.buckets[slot]);
+            for (Map.Entry<String, Integer> entry : state.buckets[slot].entrySet()) {
+                trends.windowCounts.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+        }
+        trends.rebuildTop();
+        return trends;
+    }
+
+    // Current top-k hashtags with their window counts, best first
+    List<Map.Entry<String, Integer>> trending() {
+        List<Map.Entry<String, Integer>> result = new ArrayList<>(top.size());
+        for (String hashtag : top) {
+            result.add(new AbstractMap.SimpleImmutableEntry<>(hashtag, windowCounts.get(hashtag)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Approximate Heavy Hitters for hashtag trending in a fixed amount of memory.
+ *
+ * The exact hashtag -> count map in TrendingHashtags4b grows with every distinct hashtag.
+ * HeavyHitters counts the same stream with two fixed-size summaries instead.
+ *
+ * Algorithm:
+ * 1. Count-Min Sketch (CountMinSketch):
+ *    - A table of `depth` rows and `width` counters. Each row hashes a hashtag to one counter and
+ *      adds to it. The estimate is the smallest of the hashtag's counters, which never undercounts.
+ *    - With width = ceil(e / epsilon) and depth = ceil(ln(1 / delta)), the estimate exceeds the
+ *      true count by more than epsilon * N with probability at most delta (N = hashtags counted).
+ *
+ * 2. Space-Saving (SpaceSaving):
+ *    - Keeps at most `capacity` monitored hashtags. A new hashtag that does not fit replaces the one
+ *      with the smallest count and inherits that count as its possible overcount (error).
+ *    - Every hashtag that occurs more than N / capacity times is guaranteed to be monitored.
+ *
+ * 3. Combining them:
+ *    - Space-Saving decides which hashtags are candidates, and the Count-Min Sketch gives a second
+ *      upper bound for each count. The reported count is the smaller of the two bounds.
+ *
+ * 4. Merging:
+ *    - Sketches of the same size and seed are merged by adding their tables counter by counter.
+ *    - Space-Saving summaries are merged by adding the counts of every hashtag, using the other
+ *      summary's smallest count for hashtags it does not monitor, and keeping the `capacity` largest.
+ *    - Summaries of different windows or shards can therefore be combined into one.
+ */
+
+import java.util.*;
+
+class CountMinSketch {
+    final int width; // Counters per row
+    final int depth; // Number of rows
+    final long seed; // Hash seed, sketches can only be merged when it is equal
+    private final long[] counts; // depth x width counters, row by row
+    private long total = 0; // Number of items counted
+
+    CountMinSketch(double epsilon, double delta, long seed) {
+        this((int) Math.ceil(Math.E / epsilon), (int) Math.ceil(Math.log(1 / delta)), seed);
+    }
+
+    CountMinSketch(int width, int depth, long seed) {
+        if (width <= 0 || depth <= 0) throw new IllegalArgumentException("Width and depth must be positive");
+        this.width = width;
+        this.depth = depth;
+        this.seed = seed;
+        this.counts = new long[width * depth];
+    }
+
+    void add(CharSequence item, long count) {
+        long hash = Hash64.of(item, seed);
+        int h1 = (int) hash, h2 = (int) (hash >>> 32) | 1; // Row i uses h1 + i * h2
+        for (int row = 0; row < depth; row++) {
+            counts[row * width + Math.floorMod(h1 + row * h2, width)] += count;
+        }
+        total += count;
+    }
+
+    // Upper bound of the item's count
+    long estimate(CharSequence item) {
+        long hash = Hash64.of(item, seed);
+        int h1 = (int) hash, h2 = (int) (hash >>> 32) | 1;
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counts[row * width + Math.floorMod(h1 + row * h2, width)]);
+        }
+        return min;
+    }
+
+    long total() {
+        return total;
+    }
+
+    void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth || other.seed != seed) {
+            throw new IllegalArgumentException("Only sketches with the same width, depth and seed can be merged");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+}
+
+class SpaceSaving {
+    // One monitored item
+    private static class Counter {
+        final String item;
+        long count; // Upper bound of the item's count
+        long error; // How much of count may come from items it replaced
+
+        Counter(String item, long count, long error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    private static final Comparator<Counter> BY_COUNT = (a, b) ->
+            a.count != b.count ? Long.compare(a.count, b.count) : a.item.compareTo(b.item);
+
+    final int capacity; // Most items monitored at once
+    private final HashMap<String, Counter> counters = new HashMap<>(); // item -> counter
+    private final TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT); // Same counters, smallest count first
+
+    SpaceSaving(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be positive");
+        this.capacity = capacity;
+    }
+
+    void add(String item, long count) {
+        Counter counter = counters.get(item);
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter(item, 0, 0);
+            } else {
+                Counter smallest = byCount.pollFirst(); // Replace the item with the smallest count
+                counters.remove(smallest.item);
+                counter = new Counter(item, smallest.count, smallest.count);
+            }
+            counters.put(item, counter);
+        } else {
+            byCount.remove(counter); // Re-inserted below with its new count
+        }
+        counter.count += count;
+        byCount.add(counter);
+    }
+
+    // Upper bound of the item's count, or the largest count an unmonitored item can have
+    long estimate(String item) {
+        Counter counter = counters.get(item);
+        if (counter != null) return counter.count;
+        return counters.size() < capacity ? 0 : byCount.first().count;
+    }
+
+    // Monitored items, largest count first
+    List<String> items() {
+        List<String> items = new ArrayList<>(counters.size());
+        for (Counter counter : byCount.descendingSet()) {
+            items.add(counter.item);
+        }
+        return items;
+    }
+
+    void merge(SpaceSaving other) {
+        long missingHere = counters.size() < capacity ? 0 : byCount.first().count; // Bound for items this summary does not monitor
+        long missingThere = other.counters.size() < other.capacity ? 0 : other.byCount.first().count;
+
+        HashMap<String, Counter> merged = new HashMap<>();
+        for (Counter counter : counters.values()) {
+            Counter theirs = other.counters.get(counter.item);
+            long count = counter.count + (theirs != null ? theirs.count : missingThere);
+            long error = counter.error + (theirs != null ? theirs.error : missingThere);
+            merged.put(counter.item, new Counter(counter.item, count, error));
+        }
+        for (Counter theirs : other.counters.values()) {
+            if (!merged.containsKey(theirs.item)) {
+                merged.put(theirs.item, new Counter(theirs.item, theirs.count + missingHere, theirs.error + missingHere));
+            }
+        }
+
+        // Keep the `capacity` largest counts
+        PriorityQueue<Counter> heap = new PriorityQueue<>(BY_COUNT);
+        for (Counter counter : merged.values()) {
+            heap.offer(counter);
+            if (heap.size() > capacity) heap.poll();
+        }
+        counters.clear();
+        byCount.clear();
+        for (Counter counter : heap) {
+            counters.put(counter.item, counter);
+            byCount.add(counter);
+        }
+    }
+}
+
+class HeavyHitters {
+    private final CountMinSketch sketch; // Second upper bound for every count
+    private final SpaceSaving candidates; // Hashtags that may be heavy hitters
+
+    // epsilon, delta: error bounds of the sketch. capacity: hashtags monitored by Space-Saving.
+    HeavyHitters(double epsilon, double delta, int capacity) {
+        this(new CountMinSketch(epsilon, delta, 0x9E3779B97F4A7C15L), new SpaceSaving(capacity));
+    }
+
+    private HeavyHitters(CountMinSketch sketch, SpaceSaving candidates) {
+        this.sketch = sketch;
+        this.candidates = candidates;
+    }
+
+    void add(String hashtag) {
+        sketch.add(hashtag, 1);
+        candidates.add(hashtag, 1);
+    }
+
+    // Upper bound of the hashtag's count
+    long estimate(String hashtag) {
+        return Math.min(sketch.estimate(hashtag), candidates.estimate(hashtag));
+    }
+
+    // Number of hashtags counted
+    long total() {
+        return sketch.total();
+    }
+
+    // The k hashtags with the largest estimated counts, best first and then alphabetically
+    List<Map.Entry<String, Long>> top(int k) {
+        if (k <= 0) return new ArrayList<>(); // subList would reject a negative size
+        List<Map.Entry<String, Long>> result = new ArrayList<>();
+        for (String hashtag : candidates.items()) {
+            result.add(new AbstractMap.SimpleImmutableEntry<>(hashtag, estimate(hashtag)));
+        }
+        result.sort((a, b) -> !a.getValue().equals(b.getValue())
+                ? Long.compare(b.getValue(), a.getValue()) : a.getKey().compareTo(b.getKey()));
+        return result.subList(0, Math.min(k, result.size()));
+    }
+
+    // Add the counts of another window or shard, built with the same parameters
+    void merge(HeavyHitters other) {
+        sketch.merge(other.sketch);
+        candidates.merge(other.candidates);
+    }
+}
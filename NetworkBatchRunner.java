@@ -0,0 +1,200 @@
+/*
+ * Batch Scenario Runner for the headless network engine (NetworkGraph.java).
+ *
+ * Runs scripted scenarios without a display and reports throughput and latency for
+ * every step, so the engine can be benchmarked on servers.
+ *
+ * Scenario file format (one step per line, '#' starts a comment):
+ *   load <file>                       Load a binary topology written by TopologyFile
+ *   generate <nodes> <edges> <seed>   Build a random topology
+ *   queries <count> <kind> [epsilon]  Run random path queries, kind is one of
+ *                                     dijkstra | bandwidth | widest | pareto
+ *                                     (bandwidth and widest treat connections as undirected;
+ *                                     pareto with epsilon > 0 returns an approximate frontier)
+ *   optimize                          Compute the cost-minimizing spanning tree
+ *
+ * Algorithm:
+ * 1. Steps of a scenario run one after another on the same graph.
+ * 2. A "queries" step splits its queries evenly over a fixed thread pool. Every worker draws
+ *    random (start, end) pairs from its own seeded Random and times each query with
+ *    System.nanoTime() into its own slice of a shared latency array.
+ * 3. After all workers finish, the latencies are sorted once to report the p50/p90/p99/max
+ *    percentiles, and queries per second are computed from the wall-clock time of the step.
+ *
+ * Usage: java NetworkBatchRunner [-threads N] scenario.txt [scenario2.txt ...]
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class NetworkBatchRunner {
+    private final ExecutorService pool; // Worker threads for query steps
+    private final int threads; // Number of worker threads
+    private NetworkGraph graph = new NetworkGraph(); // Graph the scenario is working on
+
+    NetworkBatchRunner(int threads) {
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads);
+    }
+
+    // Run every step of a scenario file
+    void runScenario(Path file) throws Exception {
+        System.out.println("Scenario: " + file);
+        for (String line : Files.readAllLines(file)) {
+            int comment = line.indexOf('#');
+            if (comment >= 0) line = line.substring(0, comment);
+            line = line.trim();
+            if (line.isEmpty()) continue;
+            runStep(line.split("\\s+"));
+        }
+    }
+
+    void runStep(String[] step) throws Exception {
+        switch (step[0]) {
+            case "load": {
+                long begin = System.nanoTime();
+                graph = TopologyFile.load(Paths.get(step[1]));
+                GraphSnapshot snapshot = graph.snapshot();
+                System.out.printf("  load %s: %d nodes, %d edges in %.1f ms%n",
+                        step[1], snapshot.nodes.size(), snapshot.edges.size(), (System.nanoTime() - begin) / 1e6);
+                break;
+            }
+            case "generate": {
+                int nodes = Integer.parseInt(step[1]);
+                int edges = Integer.parseInt(step[2]);
+                long seed = Long.parseLong(step[3]);
+                graph = generate(nodes, edges, seed);
+                System.out.printf("  generate: %d nodes, %d edges%n", nodes, edges);
+                break;
+            }
+            case "queries":
+                runQueries(Integer.parseInt(step[1]), step[2], step.length > 3 ? Double.parseDouble(step[3]) : 0);
+                break;
+            case "optimize": {
+                long begin = System.nanoTime();
+                GraphSnapshot snapshot = graph.snapshot();
+                ArrayList<Edge> tree = snapshot.minimumCostTree();
+                long cost = 0;
+                for (Edge edge : tree) cost += edge.cost;
+                System.out.printf("  optimize: kept %d of %d edges, total cost %d, in %.1f ms%n",
+                        tree.size(), snapshot.edges.size(), cost, (System.nanoTime() - begin) / 1e6);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown scenario step: " + step[0]);
+        }
+    }
+
+    // Random topology with bidirectional links, laid out on the same 800x600 canvas as the GUI
+    static NetworkGraph generate(int nodeCount, int edgeCount, long seed) {
+        Random random = new Random(seed);
+        NetworkGraph graph = new NetworkGraph();
+        Node[] nodes = new Node[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            nodes[i] = new Node("N" + i, random.nextInt(800), random.nextInt(600));
+            graph.addNode(nodes[i]);
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            Node a = nodes[random.nextInt(nodeCount)];
+            Node b = nodes[random.nextInt(nodeCount)];
+            int cost = 1 + random.nextInt(100);
+            int bandwidth = 1 + random.nextInt(1000);
+            graph.addEdge(new Edge(a, b, cost, bandwidth));
+            graph.addEdge(new Edge(b, a, cost, bandwidth));
+        }
+        return graph;
+    }
+
+    void runQueries(int count, String kind, double epsilon) throws Exception {
+        GraphSnapshot snapshot = graph.snapshot(); // All workers query the same version
+        if (snapshot.nodes.isEmpty()) throw new IllegalStateException("No topology loaded");
+        if (kind.equals("bandwidth") || kind.equals("widest")) {
+            snapshot.bandwidthIndex(); // Build the index up front so it is not timed as a query
+        }
+        Node[] nodes = snapshot.nodes.toArray(new Node[0]);
+        long[] latencies = new long[count];
+        List<Future<?>> workers = new ArrayList<>();
+
+        long begin = System.nanoTime();
+        for (int w = 0; w < threads; w++) {
+            int from = (int) ((long) count * w / threads);
+            int to = (int) ((long) count * (w + 1) / threads);
+            long seed = w;
+            workers.add(pool.submit(() -> {
+                Random random = new Random(seed);
+                for (int i = from; i < to; i++) {
+                    Node start = nodes[random.nextInt(nodes.length)];
+                    Node end = nodes[random.nextInt(nodes.length)];
+                    long queryBegin = System.nanoTime();
+                    query(snapshot, kind, start, end, epsilon);
+                    latencies[i] = System.nanoTime() - queryBegin;
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(); // Wait for the worker and rethrow its failure
+        }
+        long elapsed = System.nanoTime() - begin;
+
+        Arrays.sort(latencies);
+        System.out.printf("  queries %s%s: %d in %.1f ms, %.0f q/s, p50 %.1f us, p90 %.1f us, p99 %.1f us, max %.1f us%n",
+                kind, epsilon > 0 ? " (epsilon " + epsilon + ")" : "", count, elapsed / 1e6, count / (elapsed / 1e9),
+                percentile(latencies, 0.50) / 1e3, percentile(latencies, 0.90) / 1e3,
+                percentile(latencies, 0.99) / 1e3, count == 0 ? 0 : latencies[count - 1] / 1e3);
+    }
+
+    private static Object query(GraphSnapshot graph, String kind, Node start, Node end, double epsilon) {
+        switch (kind) {
+            case "dijkstra": return graph.findShortestPath(start, end);
+            case "bandwidth": return graph.maxUndirectedBandwidth(start, end);
+            case "widest": return graph.findUndirectedWidestPath(start, end);
+            case "pareto": return graph.findParetoPaths(start, end, epsilon);
+            default: throw new IllegalArgumentException("Unknown query kind: " + kind);
+        }
+    }
+
+    // Nearest-rank percentile of sorted values
+    static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int rank = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+    }
+
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> scenarios = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                scenarios.add(Paths.get(args[i]));
+            }
+        }
+        if (scenarios.isEmpty()) {
+            System.out.println("Usage: java NetworkBatchRunner [-threads N] scenario.txt [scenario2.txt ...]");
+            return;
+        }
+
+        NetworkBatchRunner runner = new NetworkBatchRunner(threads);
+        try {
+            for (Path scenario : scenarios) {
+                runner.runScenario(scenario);
+            }
+        } catch (IOException e) {
+            System.out.println("Failed to run scenario: " + e.getMessage());
+        } finally {
+            runner.shutdown();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Headless network engine for the network optimization application (Question No.(5)).
+ *
+ * The graph model and all algorithms live in this file and the files listed below, without 
+ * any AWT/Swing dependency, so they can run on servers without a display. 
+ * NetworkOptimizationGUI only draws this model and NetworkBatchRunner drives it from 
+ * scripted scenarios. Every class has its own file, so other programs can use them.
+ *
+ * Contents:
+ * 1. Node.java, Edge.java, NetworkGraph.java: the network model.
+ * 2. GraphSnapshot.java: immutable versions of the network with the bandwidth-based Dijkstra 
+ *    path search, total cost/latency and the cost-minimizing spanning tree used by 
+ *    "Optimize Network".
+ * 3. BandwidthIndex.java: maximum spanning tree with binary lifting for O(log n) bottleneck 
+ *    queries on the undirected network (every connection usable both ways).
+ * 4. ParetoPath.java, ParetoPathFinder.java: multi-criteria (cost, latency, bandwidth) path search.
+ * 5. TopologyFile.java: compact binary topology format loaded through a memory-mapped FileChannel.
+ */
+
+import java.util.*;
+
+// Mutable network that publishes immutable, versioned snapshots (copy-on-write).
+// Writers are serialized on the graph; readers call snapshot() and work on a consistent
+// version without taking any lock. A snapshot is copied at most once per version, on the
+// first read after a change, so bulk loads do not pay for a copy per edge.
+class NetworkGraph {
+    private final ArrayList<Node> nodes = new ArrayList<>(); // List of nodes in the graph (writer side)
+    private final ArrayList<Edge> edges = new ArrayList<>(); // List of edges in the graph (writer side)
+    private final Map<String, Node> nodesById = new HashMap<>(); // Node ID -> node for O(1) lookups
+    private volatile long version = 0; // Incremented by every change
+    private volatile GraphSnapshot snapshot = new GraphSnapshot(0, nodes, edges, nodesById, null); // Latest published version
+    private BandwidthIndex validIndex = null; // Bottleneck index still correct for the current edges, if any
+
+    synchronized void addNode(Node node) {
+        nodes.add(node); // Add a node to the graph
+        nodesById.putIfAbsent(node.id, node); // The first node with a given ID wins, like a linear scan would
+        validIndex = null; // A new node changes the index layout, rebuild on next query
+        version++;
+    }
+
+    synchronized void addEdge(Edge edge) {
+        BandwidthIndex index = currentIndex();
+        edges.add(edge); // Add an edge to the graph
+        validIndex = index != null && index.edgeAdded(edge) ? index : null; // Keep the index if the spanning tree is unchanged
+        version++;
+    }
+
+    synchronized void removeEdge(Edge edge) {
+        BandwidthIndex index = currentIndex();
+        if (!edges.remove(edge)) return; // Not part of the graph, nothing changes
+        validIndex = index != null && index.edgeRemoved(edge) ? index : null; // Keep the index unless a tree edge was removed
+        version++;
+    }
+
+    // Reserve room ahead of a bulk load
+    synchronized void ensureCapacity(int nodeCount, int edgeCount) {
+        nodes.ensureCapacity(nodeCount);
+        edges.ensureCapacity(edgeCount);
+    }
+
+    // Index that matches the current edges: the carried one, or the one built by the latest snapshot
+    private BandwidthIndex currentIndex() {
+        if (validIndex == null && snapshot.version == version) {
+            validIndex = snapshot.builtIndex();
+        }
+        return validIndex;
+    }
+
+    // Latest immutable version of the graph, copied only if something changed since the last call
+    GraphSnapshot snapshot() {
+        GraphSnapshot current = snapshot;
+        if (current.version == version) return current; // Lock-free fast path
+        synchronized (this) {
+            if (snapshot.version != version) {
+                snapshot = new GraphSnapshot(version, nodes, edges, nodesById, validIndex);
+            }
+            return snapshot;
+        }
+    }
+
+    // Look up a node by its ID, null if there is no such node
+    Node getNode(String id) {
+        return snapshot().getNode(id);
+    }
+
+    // Returns the bottleneck index of the latest version
+    BandwidthIndex bandwidthIndex() {
+        return snapshot().bandwidthIndex();
+    }
+
+    // Maximum bandwidth between two nodes in O(log n) with every connection usable both ways,
+    // Integer.MIN_VALUE if they are not connected. Matches findShortestPath only on symmetric networks.
+    int maxUndirectedBandwidth(Node start, Node end) {
+        return snapshot().maxUndirectedBandwidth(start, end);
+    }
+
+    // Widest path between two nodes with every connection usable both ways, from the maximum spanning tree
+    ArrayList<Node> findUndirectedWidestPath(Node start, Node end) {
+        return snapshot().findUndirectedWidestPath(start, end);
+    }
+
+    // Dijkstra's algorithm to find the shortest path based on bandwidth
+    ArrayList<Node> findShortestPath(Node start, Node end) {
+        return snapshot().findShortestPath(start, end);
+    }
+
+    // Pareto frontier of (cost, latency, bandwidth) paths between two nodes
+    ArrayList<ParetoPath> findParetoPaths(Node start, Node end) {
+        return snapshot().findParetoPaths(start, end);
+    }
+
+    // Approximate Pareto frontier: paths within a factor (1 + epsilon) of a kept path are dropped
+    ArrayList<ParetoPath> findParetoPaths(Node start, Node end, double epsilon) {
+        return snapshot().findParetoPaths(start, end, epsilon);
+    }
+
+    // Kruskal's algorithm on edge cost: the cheapest set of edges that keeps every component connected
+    ArrayList<Edge> minimumCostTree() {
+        return snapshot().minimumCostTree();
+    }
+
+    // Calculate total cost of the network
+    int calculateTotalCost() {
+        return snapshot().calculateTotalCost();
+    }
+
+    // Calculate total latency of the network
+    int calculateTotalLatency() {
+        return snapshot().calculateTotalLatency();
+    }
+}
@@ -6,7 +6,7 @@
 
     2. Interactive Optimization:
     a. Users can add nodes and edges to the graph.
-    b. The "Optimize Network" button will eventually implement algorithms like Kruskal's or Prim's to find a minimum spanning tree (MST) that minimizes total cost while ensuring connectivity.
+    b. The "Optimize Network" button uses Kruskal's algorithm to find a minimum spanning tree (MST) that minimizes total cost while ensuring connectivity.
 
     3. Dynamic Path Calculation:
     a. The "Calculate Shortest Path" button uses Dijkstra's algorithm to find the path with the maximum bandwidth between two nodes.
@@ -36,9 +36,9 @@
  *
  * 2. Interactive Optimization:
  *    - Users can add nodes and edges to the network graph.
- *    - The "Optimize Network" button will implement optimization algorithms (e.g., 
- *      Kruskal's or Prim's algorithm) to minimize total cost while ensuring all nodes 
- *      are connected.
+ *    - The "Optimize Network" button runs Kruskal's algorithm to minimize total cost 
+ *      while ensuring all nodes stay connected. The tree is shown in green, and the 
+ *      user can remove every connection outside of it.
  *
  * 3. Dynamic Path Calculation:
  *    - The "Calculate Shortest Path" button calculates the shortest path between two 
@@ -58,16 +58,44 @@
  * 2. Edge: Represents a connection between two nodes with associated cost and bandwidth.
  * 3. NetworkGraph: A collection of nodes and edges that defines the network. Includes methods 
  *    for adding nodes and edges, calculating the shortest path using Dijkstra's algorithm, 
- *    and calculating total network cost and latency.
+ *    and calculating total network cost and latency. An id -> node hash map gives O(1) 
+ *    node lookups.
+ * 4. TopologyFile: A compact binary file format for whole topologies. Files are read through 
+ *    a memory-mapped FileChannel, so large networks load without per-line parsing.
+ * The data structures and algorithms live in NetworkGraph.java and the files it lists (one 
+ * class per file), which have no GUI dependency, so the same engine also runs headless 
+ * through NetworkBatchRunner.
+ * 5. GraphSnapshot: An immutable, versioned copy of the network. Changes go through NetworkGraph, 
+ *    while painting and path queries each work on one snapshot without locking.
  *
  * Algorithms:
  * 1. Dijkstra's Algorithm for Shortest Path Calculation:
  *    - Find the maximum bandwidth path between two nodes by updating the bandwidth 
  *      of neighboring nodes and selecting the node with the highest available bandwidth.
  *
- * 2. Network Optimization (Placeholder):
- *    - Implement algorithms like Kruskal's or Prim's to find the Minimum Spanning Tree 
- *      (MST) for minimizing the total cost of the network while maintaining connectivity.
+ * 2. Network Optimization:
+ *    - Kruskal's algorithm on edges sorted by increasing cost finds the Minimum Spanning 
+ *      Tree (MST), the cheapest set of connections that keeps every part of the network 
+ *      connected.
+ *
+ * 3. Bottleneck Bandwidth Index:
+ *    - Kruskal's algorithm on edges sorted by decreasing bandwidth builds a maximum spanning 
+ *      tree. The widest path between any two nodes always runs along this tree.
+ *    - Binary lifting stores the 2^k-th ancestor of every node together with the smallest 
+ *      bandwidth on the way up, so a "max bandwidth between A and B" query is answered 
+ *      in O(log n) through the lowest common ancestor (LCA).
+ *
+ * 4. Multi-Criteria (Pareto) Path Search:
+ *    - Every path is scored by (total cost, total latency, bottleneck bandwidth). A path is 
+ *      kept only if no other path is at least as good on all three and better on one.
+ *    - Label-setting search: each node holds the labels that are not dominated by another 
+ *      label at that node, and labels are expanded in lexicographic order.
+ *    - Reverse searches from the end node give lower bounds on the remaining cost and latency 
+ *      and an upper bound on the remaining bandwidth (A*-style), so partial paths that cannot 
+ *      beat an already found path are dropped early.
+ *    - Labels settled at a node come out in cost order, so they form a (latency, bandwidth) 
+ *      staircase and each dominance check is a binary search. An optional epsilon also drops 
+ *      labels that are nearly dominated, for large networks.
  *
  * GUI Layout:
  * - A JPanel representing the network, where users can add nodes and edges interactively.
@@ -78,7 +106,7 @@
  * 1. Start with an empty network and allow the user to add nodes and edges.
  * 2. Provide a mechanism for the user to input the start and end nodes to calculate 
  *    the shortest path based on bandwidth.
- * 3. Implement the "Optimize Network" button to trigger optimization algorithms for 
+ * 3. Let the "Optimize Network" button trigger the optimization algorithm for 
  *    cost minimization.
  * 4. Continuously update the display with the current network's cost, latency, and 
  *    shortest paths.
@@ -92,104 +120,15 @@
  import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
 import java.util.*;
 import javax.swing.*;
 
-class Node {
-    String id; // Unique identifier for the node (server/client)
-    int x, y; // Coordinates for visualization
-
-    Node(String id, int x, int y) {
-        this.id = id;
-        this.x = x;
-        this.y = y;
-    }
-}
-
-class Edge {
-    Node source, destination; // Source and destination nodes
-    int cost; // Cost of the connection
-    int bandwidth; // Bandwidth of the connection
-
-    Edge(Node source, Node destination, int cost, int bandwidth) {
-        this.source = source;
-        this.destination = destination;
-        this.cost = cost;
-        this.bandwidth = bandwidth;
-    }
-}
-
-class NetworkGraph {
-    ArrayList<Node> nodes = new ArrayList<>(); // List of nodes in the graph
-    ArrayList<Edge> edges = new ArrayList<>(); // List of edges in the graph
-
-    void addNode(Node node) {
-        nodes.add(node); // Add a node to the graph
-    }
-
-    void addEdge(Edge edge) {
-        edges.add(edge); // Add an edge to the graph
-    }
-
-    // Dijkstra's algorithm to find the shortest path based on bandwidth
-    ArrayList<Node> findShortestPath(Node start, Node end) {
-        Map<Node, Integer> bandwidths = new HashMap<>(); // Stores maximum bandwidth to each node
-        Map<Node, Node> previous = new HashMap<>(); // Stores the previous node in the path
-        PriorityQueue<Node> queue = new PriorityQueue<>(Comparator.comparingInt(node -> -bandwidths.get(node))); // Fixed syntax error
-
-        for (Node node : nodes) {
-            bandwidths.put(node, Integer.MIN_VALUE); // Initialize bandwidths to minimum
-        }
-        bandwidths.put(start, Integer.MAX_VALUE); // Start node has maximum bandwidth
-        queue.add(start);
-
-        while (!queue.isEmpty()) {
-            Node current = queue.poll(); // Get the node with the highest bandwidth
-            for (Edge edge : edges) {
-                if (edge.source == current) {
-                    Node neighbor = edge.destination;
-                    int newBandwidth = Math.min(bandwidths.get(current), edge.bandwidth); // Calculate new bandwidth
-                    if (newBandwidth > bandwidths.get(neighbor)) {
-                        bandwidths.put(neighbor, newBandwidth); // Update bandwidth
-                        previous.put(neighbor, current); // Update previous node
-                        queue.add(neighbor); // Add neighbor to the queue
-                    }
-                }
-            }
-        }
-
-        // Reconstruct the path
-        ArrayList<Node> path = new ArrayList<>();
-        for (Node at = end; at != null; at = previous.get(at)) {
-            path.add(at);
-        }
-        Collections.reverse(path); // Reverse to get the correct order
-        return path;
-    }
-
-    // Calculate total cost of the network
-    int calculateTotalCost() {
-        int totalCost = 0;
-        for (Edge edge : edges) {
-            totalCost += edge.cost; // Sum up the costs of all edges
-        }
-        return totalCost;
-    }
-
-    // Calculate total latency of the network
-    int calculateTotalLatency() {
-        int totalLatency = 0;
-        for (Edge edge : edges) {
-            totalLatency += 1000 / edge.bandwidth; // Latency is inversely proportional to bandwidth
-        }
-        return totalLatency;
-    }
-}
-
 public class NetworkOptimizationGUI extends JPanel implements ActionListener {
     NetworkGraph graph = new NetworkGraph(); // Create a network graph
     Node selectedNode = null; // Currently selected node for drawing edges
     ArrayList<Node> shortestPath = new ArrayList<>(); // Stores the shortest path
+    ArrayList<Edge> optimizedTree = new ArrayList<>(); // Edges of the minimum cost tree, if computed
 
     public NetworkOptimizationGUI() {
         setPreferredSize(new Dimension(800, 600)); // Set panel size
@@ -207,14 +146,23 @@ public class NetworkOptimizationGUI extends JPanel implements ActionListener {
         JButton optimizeButton = new JButton("Optimize Network");
         optimizeButton.addActionListener(this);
         add(optimizeButton);
+
+        JButton loadButton = new JButton("Load Topology");
+        loadButton.addActionListener(this);
+        add(loadButton);
+
+        JButton saveButton = new JButton("Save Topology");
+        saveButton.addActionListener(this);
+        add(saveButton);
     }
 
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g); // Clear the panel
+        GraphSnapshot snapshot = graph.snapshot(); // Draw one consistent version of the network
 
         // Draw nodes
-        for (Node node : graph.nodes) {
+        for (Node node : snapshot.nodes) {
             g.setColor(Color.BLUE);
             g.fillOval(node.x - 10, node.y - 10, 20, 20); // Draw a circle for the node
             g.setColor(Color.BLACK);
@@ -222,7 +170,7 @@ public class NetworkOptimizationGUI extends JPanel implements ActionListener {
         }
 
         // Draw edges
-        for (Edge edge : graph.edges) {
+        for (Edge edge : snapshot.edges) {
             g.setColor(Color.BLACK);
             g.drawLine(edge.source.x, edge.source.y, edge.destination.x, edge.destination.y); // Draw a line for the edge
             g.drawString("C: " + edge.cost + ", B: " + edge.bandwidth,
@@ -230,6 +178,14 @@ public class NetworkOptimizationGUI extends JPanel implements ActionListener {
                     (edge.source.y + edge.destination.y) / 2); // Display cost and bandwidth
         }
 
+        // Draw the minimum cost tree
+        if (!optimizedTree.isEmpty()) {
+            g.setColor(Color.GREEN);
+            for (Edge edge : optimizedTree) {
+                g.drawLine(edge.source.x, edge.source.y, edge.destination.x, edge.destination.y); // Draw tree edges in green
+            }
+        }
+
         // Draw shortest path
         if (!shortestPath.isEmpty()) {
             g.setColor(Color.RED);
@@ -242,8 +198,8 @@ public class NetworkOptimizationGUI extends JPanel implements ActionListener {
 
         // Display total cost and latency
         g.setColor(Color.BLACK);
-        g.drawString("Total Cost: " + graph.calculateTotalCost(), 10, 20);
-        g.drawString("Total Latency: " + graph.calculateTotalLatency(), 10, 40);
+        g.drawString("Total Cost: " + snapshot.calculateTotalCost(), 10, 20);
+        g.drawString("Total Latency: " + snapshot.calculateTotalLatency(), 10, 40);
     }
 
     @Override
@@ -258,16 +214,56 @@ public class NetworkOptimizationGUI extends JPanel implements ActionListener {
             String startId = JOptionPane.showInputDialog("Enter Start Node ID:"); // Get start node ID
             String endId = JOptionPane.showInputDialog("Enter End Node ID:"); // Get end node ID
             if (startId != null && endId != null) {
-                Node start = graph.nodes.stream().filter(n -> n.id.equals(startId)).findFirst().orElse(null);
-                Node end = graph.nodes.stream().filter(n -> n.id.equals(endId)).findFirst().orElse(null);
+                Node start = graph.getNode(startId);
+                Node end = graph.getNode(endId);
                 if (start != null && end != null) {
                     shortestPath = graph.findShortestPath(start, end); // Calculate shortest path
                     repaint(); // Redraw the panel
                 }
             }
         } else if (e.getActionCommand().equals("Optimize Network")) {
-            // Placeholder for optimization logic
-            JOptionPane.showMessageDialog(this, "Network optimization logic will be implemented here.");
+            GraphSnapshot snapshot = graph.snapshot(); // Optimize one consistent version of the network
+            optimizedTree = snapshot.minimumCostTree();
+            int treeCost = 0, treeLatency = 0;
+            for (Edge edge : optimizedTree) {
+                treeCost += edge.cost;
+                treeLatency += 1000 / edge.bandwidth; // Same latency model as calculateTotalLatency
+            }
+            repaint(); // Show the tree
+            int removable = snapshot.edges.size() - optimizedTree.size();
+            int choice = JOptionPane.showConfirmDialog(this,
+                    "Minimum cost tree: " + optimizedTree.size() + " connections, cost " + treeCost
+                            + ", latency " + treeLatency + ".\nRemove the " + removable + " other connections?",
+                    "Optimize Network", JOptionPane.YES_NO_OPTION);
+            if (choice == JOptionPane.YES_OPTION) {
+                Set<Edge> keep = new HashSet<>(optimizedTree);
+                for (Edge edge : snapshot.edges) {
+                    if (!keep.contains(edge)) graph.removeEdge(edge); // Keep only the tree
+                }
+                shortestPath = new ArrayList<>(); // The old path may use removed connections
+                repaint();
+            }
+        } else if (e.getActionCommand().equals("Load Topology")) {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+                try {
+                    graph = TopologyFile.load(chooser.getSelectedFile().toPath()); // Replace the current network
+                    shortestPath = new ArrayList<>();
+                    optimizedTree = new ArrayList<>();
+                    repaint(); // Redraw the panel
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(this, "Failed to load topology: " + ex.getMessage());
+                }
+            }
+        } else if (e.getActionCommand().equals("Save Topology")) {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+                try {
+                    TopologyFile.save(graph, chooser.getSelectedFile().toPath());
+                } catch (IOException ex) {
+                    JOptionPane.showMessageDialog(this, "Failed to save topology: " + ex.getMessage());
+                }
+            }
         }
     }
 
@@ -0,0 +1,14 @@
+/*
+ * Node of the network optimization application (see NetworkGraph.java).
+ */
+
+class Node {
+    final String id; // Unique identifier for the node (server/client)
+    int x, y; // Coordinates for visualization
+
+    Node(String id, int x, int y) {
+        this.id = id;
+        this.x = x;
+        this.y = y;
+    }
+}
@@ -1,114 +1,642 @@
-import java.util.List;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.Queue;
-import java.util.LinkedList;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class Solution {
-    private List<List<Integer>> graph; // Adjacency list representation of the graph
-    private int[] packages; // Array to store package information for each location
-    private boolean[] visited; // Array to keep track of visited nodes during DFS
-    private int minRoads; // Variable to store the minimum number of roads traversed
+    // One-off calls build a RoadNetwork and throw it away; keep a RoadNetwork to answer many layouts
 
     public int PackageCollection(int[] packages, int[][] roads) {
-        // Initialize class variables
-        this.packages = packages;
-        this.graph = buildGraph(packages.length, roads);
-        this.visited = new boolean[packages.length];
-        this.minRoads = Integer.MAX_VALUE; // Initialize with a large value
+        return new RoadNetwork(packages.length, roads).collect(packages, 2);
+    }
 
-        // Trying to  start from each location to find the optimal starting point
-        for (int i = 0; i < packages.length; i++) {
-            dfs(i, i, 0, new HashSet<>());
+    // Same answer as PackageCollection, with the start locations searched in parallel
+    public int PackageCollectionParallel(int[] packages, int[][] roads, int parallelism) {
+        return new RoadNetwork(packages.length, roads).collectParallel(packages, 2, parallelism);
+    }
+
+    // Linear-time answer for road networks that form a tree
+    public int PackageCollectionOnTree(int[] packages, int[][] roads) {
+        return new RoadNetwork(packages.length, roads).collectOnTree(packages, 2);
+    }
+
+    public static void main(String[] args) {
+        Solution solution = new Solution();
+        int[] packages = {1, 0, 0, 0, 0, 1};
+        int[][] roads = {{0, 1}, {1, 2}, {2, 3}, {3, 4}, {4, 5}};
+        System.out.println(solution.PackageCollection(packages, roads));
+        System.out.println(solution.PackageCollectionOnTree(packages, roads)); // Same answer in O(n)
+        System.out.println(solution.PackageCollectionParallel(packages, roads, Runtime.getRuntime().availableProcessors()));
+
+        // Prepare the road map once, then answer several layouts and collection radii
+        RoadNetwork network = new RoadNetwork(packages.length, roads);
+        System.out.println(network.collectOnTree(new int[]{0, 1, 0, 0, 1, 0}, 1));
+        System.out.println(network.collect(new int[]{1, 0, 0, 0, 0, 1}, 0));
+
+        // Keep the answer up to date while packages appear and get picked up
+        IncrementalPackageCollection live = new IncrementalPackageCollection(network, 2);
+        live.addPackage(0);
+        live.addPackage(5);
+        System.out.println(live.minRoads()); // 2, same as the first answer
+        live.removePackage(0);
+        System.out.println(live.minRoads()); // 0, one package is collected without moving
+    }
+}
+
+// Road map prepared once and queried with many (packages, radius) layouts.
+// Roads are stored in compressed sparse row (CSR) form: the neighbors of location i are
+// adjacency[adjacencyStart[i] .. adjacencyStart[i + 1]), so there is no boxing and BFS/DFS
+// walk one contiguous int[].
+// Everything built in the constructor is read-only afterwards and the all-pairs distances are
+// published once through a volatile field, so one RoadNetwork can be shared by query threads.
+class RoadNetwork {
+    final int n; // Number of locations
+    private final int roadCount; // Number of roads
+    final int[] adjacencyStart; // Offset of each location's neighbors in adjacency (n + 1 entries)
+    final int[] adjacency; // Neighbors of all locations, back to back (each road appears twice)
+    private final int[] degree; // Number of roads at each location
+    private final int[] neighborXor; // XOR of all neighbors of each location
+    private volatile int[][] distance; // distance[a][b] = roads between a and b, built on the first exhaustive query
+
+    RoadNetwork(int n, int[][] roads) {
+        this.n = n;
+        this.roadCount = roads.length;
+        this.degree = new int[n];
+        this.neighborXor = new int[n];
+
+        // First pass: count the roads at every location
+        for (int[] road : roads) {
+            degree[road[0]]++;
+            degree[road[1]]++;
+            neighborXor[road[0]] ^= road[1];
+            neighborXor[road[1]] ^= road[0];
         }
+        this.adjacencyStart = offsets(degree);
+        this.adjacency = new int[2 * roadCount];
 
-        return minRoads;
+        // Second pass: place both directions of every road (undirected)
+        int[] next = Arrays.copyOf(adjacencyStart, n);
+        for (int[] road : roads) {
+            adjacency[next[road[0]]++] = road[1];
+            adjacency[next[road[1]]++] = road[0];
+        }
+    }
+
+    private RoadNetwork(int n, int roadCount, int[] adjacencyStart, int[] adjacency, int[] degree, int[] neighborXor) {
+        this.n = n;
+        this.roadCount = roadCount;
+        this.adjacencyStart = adjacencyStart;
+        this.adjacency = adjacency;
+        this.degree = degree;
+        this.neighborXor = neighborXor;
     }
 
-    private void dfs(int start, int current, int roads, Set<Integer> collected) {
-        // If all packages are collected, update minRoads and return
-        if (collected.size() == countPackages()) {
-            // Add the distance to return to the starting point
-            minRoads = Math.min(minRoads, roads + shortestPath(current, start));
-            return;
+    // Load a road map from a text file: the number of locations, then one "a b" pair per road.
+    // The file is streamed twice (count, then place), so only the CSR arrays are ever in memory.
+    static RoadNetwork load(Path file) throws IOException {
+        int n;
+        int roadCount = 0;
+        int[] degree;
+        int[] neighborXor;
+        try (IntReader in = new IntReader(Files.newInputStream(file))) {
+            n = in.next();
+            if (n < 0) throw new IOException("Missing location count in " + file);
+            degree = new int[n];
+            neighborXor = new int[n];
+            for (int a = in.next(); a >= 0; a = in.next()) {
+                int b = in.next();
+                if (b < 0 || a >= n || b >= n) throw new IOException("Bad road " + a + " " + b + " in " + file);
+                degree[a]++;
+                degree[b]++;
+                neighborXor[a] ^= b;
+                neighborXor[b] ^= a;
+                roadCount++;
+            }
         }
 
-        visited[current] = true; // Mark current node as visited
+        int[] adjacencyStart = offsets(degree);
+        int[] adjacency = new int[2 * roadCount];
+        int[] next = Arrays.copyOf(adjacencyStart, n);
+        try (IntReader in = new IntReader(Files.newInputStream(file))) {
+            in.next(); // Location count, already known
+            for (int a = in.next(); a >= 0; a = in.next()) {
+                int b = in.next();
+                adjacency[next[a]++] = b;
+                adjacency[next[b]++] = a;
+            }
+        }
+        return new RoadNetwork(n, roadCount, adjacencyStart, adjacency, degree, neighborXor);
+    }
 
-        // Collect packages within 2 steps of the current location
-        for (int i = 0; i < packages.length; i++) {
-            if (shortestPath(current, i) <= 2 && packages[i] == 1) {
-                collected.add(i);
+    // Prefix sums of the degrees: where each location's neighbors begin
+    private static int[] offsets(int[] degree) {
+        int[] start = new int[degree.length + 1];
+        for (int i = 0; i < degree.length; i++) {
+            start[i + 1] = start[i] + degree[i];
+        }
+        return start;
+    }
+
+    // Reads non-negative decimal integers separated by anything else, without creating Strings
+    private static class IntReader implements AutoCloseable {
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16]; // Chunk of the file being parsed
+        private int position = 0, limit = 0; // Next byte to parse and end of the valid bytes
+
+        IntReader(InputStream in) {
+            this.in = in;
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
             }
+            return buffer[position++] & 0xFF;
         }
 
-        // Explore all neighboring locations
-        for (int neighbor : graph.get(current)) {
-            if (!visited[neighbor]) {
-                // Recursive call to explore this path
-                dfs(start, neighbor, roads + 1, new HashSet<>(collected));
+        // Next integer in the stream, -1 at the end. Numbers above Integer.MAX_VALUE are rejected.
+        int next() throws IOException {
+            int c = read();
+            while (c >= 0 && (c < '0' || c > '9')) c = read(); // Skip separators
+            if (c < 0) return -1;
+            int value = 0;
+            while (c >= '0' && c <= '9') {
+                int digit = c - '0';
+                if (value > (Integer.MAX_VALUE - digit) / 10) {
+                    throw new IOException("Number too large: exceeds " + Integer.MAX_VALUE);
+                }
+                value = value * 10 + digit;
+                c = read();
             }
+            return value;
         }
 
-        visited[current] = false; // Backtrack: mark current node as unvisited
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
     }
 
-    private List<List<Integer>> buildGraph(int n, int[][] roads) {
-        // Create an adjacency list representation of the graph
-        List<List<Integer>> graph = new ArrayList<>();
+    // Exhaustive search from every start location, for small inputs and road maps with cycles
+    int collect(int[] packages, int radius) {
+        Layout layout = new Layout(packages, radius);
+        AtomicInteger minRoads = new AtomicInteger(Integer.MAX_VALUE); // Initialize with a large value
+
+        // Trying to  start from each location to find the optimal starting point
+        RouteSearch search = new RouteSearch(layout, minRoads); // One set of search stacks reused for every start
         for (int i = 0; i < n; i++) {
-            graph.add(new ArrayList<>());
+            search.dfs(i);
         }
-        // Add edges to the graph (undirected)
-        for (int[] road : roads) {
-            graph.get(road[0]).add(road[1]);
-            graph.get(road[1]).add(road[0]);
+
+        return minRoads.get();
+    }
+
+    // Same answer as collect, with the start locations searched in parallel.
+    // All searches share the best answer so far, and cut any branch that cannot beat it.
+    int collectParallel(int[] packages, int radius, int parallelism) {
+        Layout layout = new Layout(packages, radius);
+        AtomicInteger minRoads = new AtomicInteger(Integer.MAX_VALUE);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new StartRange(layout, 0, n, minRoads));
+        } finally {
+            pool.shutdown();
         }
-        return graph;
+        return minRoads.get();
     }
 
-    private int shortestPath(int from, int to) {
-        // BFS to find shortest path between two nodes
-        Queue<Integer> queue = new LinkedList<>();
-        boolean[] visited = new boolean[packages.length];
-        int[] distance = new int[packages.length];
-        Arrays.fill(distance, Integer.MAX_VALUE);
+    // Linear-time solver for road networks that form a tree (n locations, n - 1 roads).
+    // 1. Repeatedly remove leaves without a package: the route never needs to enter them.
+    // 2. Remove the remaining leaves `radius` more times: packages there are collected from a distance.
+    // 3. Every road left has to be driven once out and once back, so the answer is 2 * roads left.
+    int collectOnTree(int[] packages, int radius) {
+        int[] degree = this.degree.clone(); // Per-query copies, the prepared arrays stay untouched
+        int[] neighborXor = this.neighborXor.clone(); // A leaf's XOR is its only remaining neighbor
+        int roadsLeft = roadCount;
+        boolean[] removed = new boolean[n];
+        int[] queue = new int[n];
 
-        queue.offer(from);
-        visited[from] = true;
-        distance[from] = 0;
+        // Step 1: trim leaves without packages, following chains of empty locations
+        int head = 0, tail = 0;
+        for (int i = 0; i < n; i++) {
+            if (degree[i] == 1 && packages[i] == 0) queue[tail++] = i;
+        }
+        while (head < tail) {
+            int leaf = queue[head++];
+            if (degree[leaf] != 1) continue; // Lost its last road already
+            int neighbor = neighborXor[leaf];
+            removed[leaf] = true;
+            degree[leaf] = 0;
+            roadsLeft--;
+            neighborXor[neighbor] ^= leaf;
+            if (--degree[neighbor] == 1 && packages[neighbor] == 0) queue[tail++] = neighbor;
+        }
 
-        while (!queue.isEmpty()) {
-            int current = queue.poll();
-            if (current == to) return distance[current];
+        // Step 2: one round per step of collection radius, each removing every current leaf at once
+        for (int round = 0; round < radius && roadsLeft > 0; round++) {
+            head = 0;
+            tail = 0;
+            for (int i = 0; i < n; i++) {
+                if (!removed[i] && degree[i] == 1) queue[tail++] = i;
+            }
+            while (head < tail) {
+                int leaf = queue[head++];
+                if (degree[leaf] != 1) continue; // Its partner in a two-location tree went first
+                int neighbor = neighborXor[leaf];
+                removed[leaf] = true;
+                degree[leaf] = 0;
+                roadsLeft--;
+                neighborXor[neighbor] ^= leaf;
+                degree[neighbor]--;
+            }
+        }
 
-            for (int neighbor : graph.get(current)) {
-                if (!visited[neighbor]) {
-                    visited[neighbor] = true;
+        return Math.max(roadsLeft, 0) * 2;
+    }
+
+    // All-pairs distances, one BFS per location, computed once and shared by all queries
+    int[][] distances() {
+        int[][] result = distance;
+        if (result == null) {
+            synchronized (this) {
+                result = distance;
+                if (result == null) {
+                    result = new int[n][];
+                    for (int i = 0; i < n; i++) {
+                        result[i] = shortestPaths(i);
+                    }
+                    distance = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private int[] shortestPaths(int from) {
+        // BFS to find the shortest distance from one node to every node
+        int[] queue = new int[n];
+        int[] distance = new int[n];
+        Arrays.fill(distance, Integer.MAX_VALUE); // Unreachable nodes keep MAX_VALUE
+
+        int head = 0, tail = 0;
+        queue[tail++] = from;
+        distance[from] = 0;
+
+        while (head < tail) {
+            int current = queue[head++];
+            for (int i = adjacencyStart[current]; i < adjacencyStart[current + 1]; i++) {
+                int neighbor = adjacency[i];
+                if (distance[neighbor] == Integer.MAX_VALUE) {
                     distance[neighbor] = distance[current] + 1;
-                    queue.offer(neighbor);
+                    queue[tail++] = neighbor;
                 }
             }
         }
 
-        return Integer.MAX_VALUE; // If no path found
+        return distance;
     }
 
-    private int countPackages() {
-        // Count the total number of packages to be collected
-        int count = 0;
-        for (int p : packages) {
-            if (p == 1) count++;
+    // Per-query data for the exhaustive search: which packages each location can collect
+    private class Layout {
+        final int packageTotal; // Number of packages to collect
+        final long[][] withinRadius; // Bitset of packages (by package number) within the radius of each location
+
+        Layout(int[] packages, int radius) {
+            int[][] distance = distances();
+
+            // Number the packages 0..k-1 so the bitsets only need one bit per package
+            int[] packageLocation = new int[n];
+            int k = 0;
+            for (int i = 0; i < n; i++) {
+                if (packages[i] == 1) packageLocation[k++] = i;
+            }
+            packageTotal = k;
+
+            withinRadius = new long[n][(k + 63) / 64];
+            for (int i = 0; i < n; i++) {
+                for (int p = 0; p < k; p++) {
+                    if (distance[i][packageLocation[p]] <= radius) withinRadius[i][p >> 6] |= 1L << p;
+                }
+            }
         }
-        return count;
     }
 
-    public static void main(String[] args) {
-        Solution solution = new Solution();
-        int[] packages = {1, 0, 0, 0, 0, 1};
-        int[][] roads = {{0, 1}, {1, 2}, {2, 3}, {3, 4}, {4, 5}};
-        System.out.println(solution.PackageCollection(packages, roads));
+    // Splits the start locations in halves until each task searches a single start
+    private class StartRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L; // Tasks are never serialized; keeps -Xlint:serial quiet
+        private final Layout layout; // Query being answered
+        private final int from, to; // Start locations [from, to)
+        private final AtomicInteger minRoads; // Best answer shared by all tasks
+
+        StartRange(Layout layout, int from, int to, AtomicInteger minRoads) {
+            this.layout = layout;
+            this.from = from;
+            this.to = to;
+            this.minRoads = minRoads;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                new RouteSearch(layout, minRoads).dfs(from);
+            } else if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new StartRange(layout, from, mid, minRoads), new StartRange(layout, mid, to, minRoads));
+            }
+        }
+    }
+
+    // Stacks for one exhaustive search. A simple route has at most n locations, so
+    // everything is allocated once and no branch allocates.
+    private class RouteSearch {
+        private final Layout layout; // Query being answered
+        private final AtomicInteger minRoads; // Best answer found so far, possibly by other searches
+        private final boolean[] visited = new boolean[n]; // Locations on the current route
+        private final long[][] collected; // collected[d] = packages collected by the route prefix of length d
+        private final int[] route = new int[n]; // route[d] = location at depth d of the current route
+        private final int[] nextNeighbor = new int[n]; // nextNeighbor[d] = position in adjacency of the next neighbor of route[d] to try
+
+        RouteSearch(Layout layout, AtomicInteger minRoads) {
+            this.layout = layout;
+            this.minRoads = minRoads;
+            this.collected = new long[n][(layout.packageTotal + 63) / 64];
+        }
+
+        // Exhaustive search over routes that drive out along one simple path and come back the
+        // shortest way. Exponential, so only for small inputs, where it cross-checks
+        // collectOnTree (they agree whenever the roads that must be driven form a path).
+        void dfs(int start) {
+            int[] distanceFromStart = distances()[start]; // Shortest distance from this start to every location
+            route[0] = start;
+            if (collect(0, start)) {
+                minRoads.accumulateAndGet(0, Math::min);
+                return;
+            }
+            visited[start] = true; // Mark current node as visited
+            nextNeighbor[0] = adjacencyStart[start];
+            int depth = 0;
+
+            while (depth >= 0) {
+                int current = route[depth];
+                if (nextNeighbor[depth] == adjacencyStart[current + 1]) {
+                    visited[current] = false; // Backtrack: mark current node as unvisited
+                    depth--;
+                    continue;
+                }
+
+                // Explore the next neighboring location
+                int neighbor = adjacency[nextNeighbor[depth]++];
+                if (visited[neighbor]) continue;
+                // Any route through here still has to drive back: roads so far + distance home is a lower bound
+                int bound = depth + 1 + distanceFromStart[neighbor];
+                if (bound >= minRoads.get()) continue;
+                route[depth + 1] = neighbor;
+                if (collect(depth + 1, neighbor)) {
+                    // All packages collected: add the distance to return to the starting point
+                    minRoads.accumulateAndGet(bound, Math::min);
+                    continue;
+                }
+                depth++;
+                visited[neighbor] = true;
+                nextNeighbor[depth] = adjacencyStart[neighbor];
+            }
+        }
+
+        // Collect packages within the radius of a location on top of the previous level, true if that is all of them
+        private boolean collect(int depth, int location) {
+            long[] bits = collected[depth];
+            long[] reach = layout.withinRadius[location];
+            int count = 0;
+            for (int w = 0; w < bits.length; w++) {
+                bits[w] = depth == 0 ? reach[w] : collected[depth - 1][w] | reach[w];
+                count += Long.bitCount(bits[w]);
+            }
+            return count == layout.packageTotal;
+        }
+    }
+}
+
+// PackageCollection answer for a tree road network, kept up to date under addPackage/removePackage.
+//
+// Rooting the tree at location 0, a location v survives the trimming of collectOnTree exactly
+// when it has two "far branches": parts of the tree around v holding a package at least
+// `radius` roads away (for radius 0 a package at v itself also counts). The answer is
+// 2 * (survivors - 1).
+// 1. down[v] is the depth of the deepest package below v, capped at radius. A change only
+//    walks up the ancestors whose capped value really changes, so an update costs the length
+//    of the affected path (times the radius).
+// 2. Far branches below v are counted from down[] of its children; the counts of locations
+//    with one and with two or more far branches are kept as totals.
+// 3. A location with one far branch below also survives if the branch above it is far. That only
+//    fails for the ancestors of L (the lowest common ancestor of all packages) and for up to
+//    radius - 1 locations below L on the way to the deepest package, which are checked directly.
+class IncrementalPackageCollection {
+    private final int n; // Number of locations
+    private final int radius; // Collection radius
+    private final int threshold; // A child branch is far when its down value is at least this
+    private final int[] parent; // Parent of each location (the root is its own parent)
+    private final int[] depth; // Roads from the root
+    private final int[] tin; // Preorder number of each location
+    private final int[] nodeAtTin; // Location with a given preorder number
+    private final int[][] ancestor; // ancestor[k][v] = 2^k-th ancestor of v
+    private final int[] packageCount; // Packages waiting at each location
+    private final int[] down; // Capped depth of the deepest package below each location, -1 if none
+    private final int[][] childDown; // childDown[v][k] = number of children of v whose down is k
+    private final int[] branches; // Far branches below each location
+    private int oneBranch = 0; // Locations with exactly one far branch below
+    private int twoBranches = 0; // Locations with two or more far branches below
+    private final TreeSet<Integer> byTin = new TreeSet<>(); // Preorder numbers of locations holding packages
+    private final TreeSet<Long> byDepth = new TreeSet<>(); // (depth, location) of locations holding packages
+    private int minRoads = 0; // Current answer
+
+    IncrementalPackageCollection(RoadNetwork network, int radius) {
+        this.n = network.n;
+        this.radius = radius;
+        this.threshold = Math.max(radius - 1, 0);
+        this.parent = new int[n];
+        this.depth = new int[n];
+        this.tin = new int[n];
+        this.nodeAtTin = new int[n];
+        this.packageCount = new int[n];
+        this.down = new int[n];
+        this.childDown = new int[n][radius + 1];
+        this.branches = new int[n];
+        Arrays.fill(down, -1);
+
+        // Iterative DFS from location 0 for parents, depths and preorder numbers
+        int[] stack = new int[n];
+        int size = 0, time = 0;
+        if (n > 0) {
+            stack[size++] = 0;
+            parent[0] = 0;
+        }
+        boolean[] seen = new boolean[n];
+        if (n > 0) seen[0] = true;
+        while (size > 0) {
+            int v = stack[--size];
+            tin[v] = time;
+            nodeAtTin[time++] = v;
+            for (int i = network.adjacencyStart[v]; i < network.adjacencyStart[v + 1]; i++) {
+                int next = network.adjacency[i];
+                if (!seen[next]) {
+                    seen[next] = true;
+                    parent[next] = v;
+                    depth[next] = depth[v] + 1;
+                    stack[size++] = next;
+                }
+            }
+        }
+
+        int log = 1;
+        while ((1 << log) < Math.max(n, 1)) log++;
+        ancestor = new int[log][];
+        ancestor[0] = parent;
+        for (int k = 1; k < log; k++) {
+            ancestor[k] = new int[n];
+            for (int v = 0; v < n; v++) {
+                ancestor[k][v] = ancestor[k - 1][ancestor[k - 1][v]];
+            }
+        }
+    }
+
+    // A package appears at a location
+    void addPackage(int location) {
+        update(location, 1);
+    }
+
+    // A package is picked up at a location
+    void removePackage(int location) {
+        if (packageCount[location] > 0) update(location, -1);
+    }
+
+    // Minimum roads to collect every waiting package and return, same as collectOnTree
+    int minRoads() {
+        return minRoads;
+    }
+
+    private void update(int location, int delta) {
+        boolean had = packageCount[location] > 0;
+        packageCount[location] += delta;
+        boolean has = packageCount[location] > 0;
+        if (had == has) return; // Another package at the same location, nothing changes
+
+        long key = ((long) depth[location] << 32) | location;
+        if (has) {
+            byTin.add(tin[location]);
+            byDepth.add(key);
+        } else {
+            byTin.remove(tin[location]);
+            byDepth.remove(key);
+        }
+        recountBranches(location); // A package at v is a branch of its own for radius 0
+
+        // Walk up while the capped depth of the deepest package keeps changing
+        int v = location;
+        int newDown = computeDown(v);
+        while (newDown != down[v]) {
+            int oldDown = down[v];
+            down[v] = newDown;
+            if (v == parent[v]) break; // Reached the root
+            int p = parent[v];
+            if (oldDown >= 0) childDown[p][oldDown]--;
+            if (newDown >= 0) childDown[p][newDown]++;
+            recountBranches(p);
+            v = p;
+            newDown = computeDown(v);
+        }
+
+        minRoads = computeAnswer();
+    }
+
+    // Deepest package below v (or at v), capped at the radius
+    private int computeDown(int v) {
+        int result = packageCount[v] > 0 ? 0 : -1;
+        for (int k = radius; k >= 0; k--) {
+            if (childDown[v][k] > 0) return Math.max(result, Math.min(k + 1, radius));
+        }
+        return result;
+    }
+
+    private void recountBranches(int v) {
+        int count = radius == 0 && packageCount[v] > 0 ? 1 : 0;
+        for (int k = threshold; k <= radius; k++) {
+            count += childDown[v][k];
+        }
+        if (branches[v] == 1) oneBranch--;
+        else if (branches[v] >= 2) twoBranches--;
+        branches[v] = count;
+        if (count == 1) oneBranch++;
+        else if (count >= 2) twoBranches++;
+    }
+
+    private int computeAnswer() {
+        if (byTin.isEmpty()) return 0;
+        int lowest = lca(nodeAtTin[byTin.first()], nodeAtTin[byTin.last()]); // L: ancestor of every package
+        long deepestKey = byDepth.last();
+        int deepestDepth = (int) (deepestKey >>> 32);
+        int deepest = (int) deepestKey;
+
+        // One far branch below and nothing far above: never survives
+        int blocked = Math.max(0, Math.min(deepestDepth - radius + 1, depth[lowest])); // Ancestors of L
+        if (branches[lowest] == 1) blocked++;
+        for (int j = 1; j < radius && depth[lowest] + j <= deepestDepth; j++) {
+            int v = ancestorAt(deepest, depth[lowest] + j);
+            if (branches[v] == 1 && !farAbove(v, lowest)) blocked++;
+        }
+
+        int survivors = twoBranches + oneBranch - blocked;
+        return Math.max(survivors - 1, 0) * 2;
+    }
+
+    // True if a package outside v's subtree is at least radius roads from v (v is below L)
+    private boolean farAbove(int v, int lowest) {
+        int below = v; // Child on the way back down to v
+        int a = parent[v];
+        for (int i = 1; ; i++) {
+            // Deepest package below a that is not under `below`
+            int other = packageCount[a] > 0 ? 0 : -1;
+            for (int k = radius; k >= 0; k--) {
+                if (childDown[a][k] - (down[below] == k ? 1 : 0) > 0) {
+                    other = Math.max(other, k + 1);
+                    break;
+                }
+            }
+            if (other >= 0 && i + other >= radius) return true;
+            if (a == lowest) return false;
+            below = a;
+            a = parent[a];
+        }
+    }
+
+    private int ancestorAt(int v, int targetDepth) {
+        for (int k = ancestor.length - 1; k >= 0; k--) {
+            if (depth[v] - (1 << k) >= targetDepth) v = ancestor[k][v];
+        }
+        return v;
+    }
+
+    private int lca(int u, int v) {
+        if (depth[u] < depth[v]) {
+            int t = u; u = v; v = t;
+        }
+        u = ancestorAt(u, depth[v]);
+        if (u == v) return u;
+        for (int k = ancestor.length - 1; k >= 0; k--) {
+            if (ancestor[k][u] != ancestor[k][v]) {
+                u = ancestor[k][u];
+                v = ancestor[k][v];
+            }
+        }
+        return parent[u];
     }
-}
\ No newline at end of file
+}
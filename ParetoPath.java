@@ -0,0 +1,20 @@
+/*
+ * Result of the multi-criteria path search (see ParetoPathFinder.java).
+ */
+
+import java.util.ArrayList;
+
+// One path on the Pareto frontier together with its scores
+class ParetoPath {
+    ArrayList<Node> path; // Nodes from start to end
+    long cost; // Sum of edge costs
+    long latency; // Sum of edge latencies (1000 / bandwidth, as in calculateTotalLatency)
+    int bandwidth; // Smallest edge bandwidth along the path
+
+    ParetoPath(ArrayList<Node> path, long cost, long latency, int bandwidth) {
+        this.path = path;
+        this.cost = cost;
+        this.latency = latency;
+        this.bandwidth = bandwidth;
+    }
+}
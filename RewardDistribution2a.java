@@ -44,10 +44,59 @@ Step-by-step:
 
 The approach ensures that each employee gets at least one reward, and the rule of giving more rewards to employees with higher ratings than their adjacent colleagues is adhered to.
 
+Streaming Variant (RewardCounter): Single Pass, O(1) Memory
+
+1. **Slopes Instead of an Array**:
+   - Only three counters are kept: the length of the current increasing run (`up`), the length of the current decreasing run (`down`), and the height of the last peak (`peak`).
+
+2. **Per Rating**:
+   - Higher than the previous rating: the employee gets `up + 1` rewards, and this becomes the new peak.
+   - Equal to the previous rating: the run restarts and the employee gets 1 reward.
+   - Lower than the previous rating: every employee on the decreasing run gets one more reward, which adds `down` rewards. The peak also needs one more once the run is as long as the peak's increasing side.
+
+3. **Total as long**:
+   - The running total is kept in a `long`, so very long inputs cannot overflow it.
+   - Ratings can come from an `IntStream`, a primitive iterator or an `InputStream` of text, and the total is available after every rating. Unbounded feeds therefore never need to be buffered.
+
+Parallel Variant (minRewardsParallel): Chunks of a Memory-Mapped Rating File
+
+1. **Rewards from Runs**:
+   - An employee needs max(L, R) rewards, where L is the length of the increasing run that ends at them and R the length of the decreasing run that starts at them.
+   - Only the first run and the last run of a chunk can reach across its edges, so a chunk is summarized by its first and last rating, the increasing run at its end and the decreasing run at its start.
+
+2. **Chunk Passes on a ForkJoinPool**:
+   - The rating file (raw 4-byte ints) is mapped chunk by chunk, and the chunks are summarized in parallel.
+   - Boundary merge: one left-to-right sweep extends each chunk's ending increasing run into the chunks before it, and one right-to-left sweep extends each chunk's starting decreasing run into the chunks after it.
+   - Every chunk then sums max(L, R) for its own employees in parallel. It starts from the L of the employee just before it and ends with the R of the employee just after it, so the totals add up to exactly the sequential answer.
+
+Point Updates (RewardTracker): Changing One Rating
+
+1. **Stored Runs**:
+   - L[i] and R[i] are kept for every employee together with the total of max(L[i], R[i]).
+
+2. **Update**:
+   - A new rating at i can only change L from i onward along the increasing run, and R from i backward along the decreasing run.
+   - L is recomputed left to right from i and stops at the first employee after i + 1 whose L stays the same. R is recomputed the same way going right to left.
+   - Every changed entry updates the total by the difference of its max(L, R), so an update costs O(length of the affected runs) instead of O(n).
+
 */
 
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 public class RewardDistribution2a { // Class name RewardDistribution 
 
@@ -88,6 +137,279 @@ public class RewardDistribution2a { // Class name RewardDistribution
         return totalRewards;
     }
 
+    // Same answer as minRewards(int[]), in one pass and O(1) memory
+    public static long minRewards(PrimitiveIterator.OfInt ratings) {
+        RewardCounter counter = new RewardCounter();
+        while (ratings.hasNext()) {
+            counter.accept(ratings.nextInt());
+        }
+        return counter.total();
+    }
+
+    public static long minRewards(IntStream ratings) {
+        return minRewards(ratings.sequential().iterator()); // Ratings must be seen in order
+    }
+
+    // Ratings as text: integers separated by whitespace, commas or any other non-digit characters
+    public static long minRewards(InputStream in) throws IOException {
+        RewardCounter counter = new RewardCounter();
+        byte[] buffer = new byte[1 << 16];
+        boolean inNumber = false, negative = false;
+        int value = 0;
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            for (int i = 0; i < read; i++) {
+                int c = buffer[i];
+                if (c >= '0' && c <= '9') {
+                    int digit = c - '0';
+                    if (value > (Integer.MAX_VALUE - digit) / 10) {
+                        throw new IOException("Number too large: exceeds " + Integer.MAX_VALUE);
+                    }
+                    value = value * 10 + digit;
+                    inNumber = true;
+                } else {
+                    if (inNumber) counter.accept(negative ? -value : value);
+                    negative = c == '-'; // A sign only counts right before digits
+                    inNumber = false;
+                    value = 0;
+                }
+            }
+        }
+        if (inNumber) counter.accept(negative ? -value : value);
+        return counter.total();
+    }
+
+    // Running minimum reward total over a feed of ratings, updated one rating at a time
+    static class RewardCounter implements IntConsumer {
+        private long total = 0; // Rewards needed for the ratings seen so far
+        private boolean first = true; // No rating seen yet
+        private int previous; // Previous rating
+        private int up = 0; // Length of the current increasing run
+        private int down = 0; // Length of the current decreasing run
+        private int peak = 0; // Increasing run length at the last peak
+
+        @Override
+        public void accept(int rating) {
+            if (first) {
+                total = 1; // The first employee gets one reward
+                first = false;
+            } else if (rating > previous) {
+                up++;
+                peak = up;
+                down = 0;
+                total += up + 1; // One more than the previous employee
+            } else if (rating == previous) {
+                up = down = peak = 0;
+                total += 1; // Equal neighbours do not constrain each other
+            } else {
+                up = 0;
+                down++;
+                // Everyone on the decreasing run moves up by one, the peak only once the run reaches it
+                total += down + (peak >= down ? 0 : 1);
+            }
+            previous = rating;
+        }
+
+        // Minimum rewards for all ratings seen so far
+        long total() {
+            return total;
+        }
+    }
+
+    static final int CHUNK_RATINGS = 1 << 22; // Largest chunk of a rating file, in ratings (16 MB)
+
+    // Rating files hold raw 4-byte big-endian ints, one per employee
+    public static void writeRatings(Path file, int[] ratings) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            for (int rating : ratings) {
+                out.writeInt(rating);
+            }
+        }
+    }
+
+    public static long minRewardsParallel(Path file) throws IOException {
+        return minRewardsParallel(file, ForkJoinPool.commonPool());
+    }
+
+    // Same answer as minRewards(int[]) for the ratings in a rating file, computed chunk by chunk in parallel
+    public static long minRewardsParallel(Path file, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() % 4 != 0) throw new IOException("Rating file size is not a multiple of 4: " + file);
+            long count = channel.size() / 4;
+            if (count == 0) return 0;
+
+            // Enough chunks to keep every worker busy, none larger than CHUNK_RATINGS
+            long chunkCount = Math.max((count + CHUNK_RATINGS - 1) / CHUNK_RATINGS,
+                    Math.min(count, pool.getParallelism() * 4L));
+            RatingChunk[] chunks = new RatingChunk[(int) chunkCount];
+            for (int k = 0; k < chunks.length; k++) {
+                long from = count * k / chunkCount;
+                long to = count * (k + 1) / chunkCount;
+                chunks[k] = new RatingChunk(channel.map(FileChannel.MapMode.READ_ONLY, from * 4, (to - from) * 4).asIntBuffer());
+            }
+
+            pool.invoke(new ChunkRange(chunks, 0, chunks.length, false)); // Pass 1: runs at the chunk edges
+
+            // Boundary merge: runs that reach a chunk edge continue into the neighboring chunk
+            for (int k = 0; k < chunks.length; k++) {
+                RatingChunk chunk = chunks[k];
+                chunk.upEnd = chunk.upSuffix;
+                if (k > 0 && chunk.upSuffix == chunk.length && chunk.first > chunks[k - 1].last) {
+                    chunk.upEnd += chunks[k - 1].upEnd; // The whole chunk continues the increasing run
+                }
+            }
+            for (int k = chunks.length - 1; k >= 0; k--) {
+                RatingChunk chunk = chunks[k];
+                chunk.downStart = chunk.downPrefix;
+                if (k + 1 < chunks.length && chunk.downPrefix == chunk.length && chunk.last > chunks[k + 1].first) {
+                    chunk.downStart += chunks[k + 1].downStart; // The decreasing run goes on past the chunk
+                }
+            }
+            for (int k = 0; k < chunks.length; k++) {
+                RatingChunk chunk = chunks[k];
+                if (k > 0 && chunk.first > chunks[k - 1].last) chunk.upBefore = chunks[k - 1].upEnd;
+                if (k + 1 < chunks.length && chunk.last > chunks[k + 1].first) chunk.downAfter = chunks[k + 1].downStart;
+            }
+
+            pool.invoke(new ChunkRange(chunks, 0, chunks.length, true)); // Pass 2: rewards of every chunk
+            long total = 0;
+            for (RatingChunk chunk : chunks) {
+                total += chunk.rewards;
+            }
+            return total;
+        }
+    }
+
+    // One memory-mapped chunk of a rating file and the runs that cross its edges
+    static class RatingChunk {
+        final IntBuffer ratings; // Ratings of this chunk
+        final int length; // Number of ratings in the chunk
+        int first, last; // First and last rating
+        int upSuffix; // Length of the increasing run ending at the last rating, inside the chunk
+        int downPrefix; // Length of the decreasing run starting at the first rating, inside the chunk
+        long upEnd; // L of the last rating, counting earlier chunks
+        long downStart; // R of the first rating, counting later chunks
+        long upBefore; // L of the rating before the chunk if it continues into the chunk, else 0
+        long downAfter; // R of the rating after the chunk if the chunk continues into it, else 0
+        long rewards; // Rewards of the employees in this chunk
+
+        RatingChunk(IntBuffer ratings) {
+            this.ratings = ratings;
+            this.length = ratings.limit();
+        }
+
+        // Pass 1: only the runs at the edges are scanned, which is usually a few ratings
+        void summarize() {
+            first = ratings.get(0);
+            last = ratings.get(length - 1);
+            upSuffix = 1;
+            while (upSuffix < length && ratings.get(length - upSuffix - 1) < ratings.get(length - upSuffix)) upSuffix++;
+            downPrefix = 1;
+            while (downPrefix < length && ratings.get(downPrefix) < ratings.get(downPrefix - 1)) downPrefix++;
+        }
+
+        // Pass 2: sum max(L, R) over the chunk. Inside a decreasing run every L but the first is 1
+        // and R counts down to the end of the run, so each run is added as a whole when it ends.
+        void sumRewards() {
+            long sum = 0;
+            long headUp = upBefore + 1; // L of the first rating of the current decreasing run
+            long run = 1; // Ratings in the current decreasing run
+            int previous = ratings.get(0);
+            for (int i = 1; i < length; i++) {
+                int rating = ratings.get(i);
+                if (rating < previous) {
+                    run++;
+                } else {
+                    sum += runRewards(headUp, run, 1);
+                    long previousUp = run > 1 ? 1 : headUp; // L of the previous rating
+                    headUp = rating > previous ? previousUp + 1 : 1;
+                    run = 1;
+                }
+                previous = rating;
+            }
+            rewards = sum + runRewards(headUp, run, downAfter + 1);
+        }
+
+        // Rewards of a decreasing run whose first rating has L = headUp and whose last rating has R = tailDown
+        private static long runRewards(long headUp, long run, long tailDown) {
+            return Math.max(headUp, tailDown + run - 1) + (run - 1) * tailDown + (run - 1) * (run - 2) / 2;
+        }
+    }
+
+    // Runs one pass over the chunks [from, to), splitting the range between workers
+    private static class ChunkRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L; // Tasks are never serialized; keeps -Xlint:serial quiet
+        private final RatingChunk[] chunks; // All chunks of the file
+        private final int from, to; // Chunks [from, to)
+        private final boolean sumPass; // Pass 2 (rewards) instead of pass 1 (edge runs)
+
+        ChunkRange(RatingChunk[] chunks, int from, int to, boolean sumPass) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.sumPass = sumPass;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                if (sumPass) chunks[from].sumRewards();
+                else chunks[from].summarize();
+            } else if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ChunkRange(chunks, from, mid, sumPass), new ChunkRange(chunks, mid, to, sumPass));
+            }
+        }
+    }
+
+    // Minimum reward total of a rating array that changes one rating at a time
+    static class RewardTracker {
+        private final int[] ratings; // Current ratings
+        private final int[] up; // up[i] = L, length of the increasing run ending at i
+        private final int[] down; // down[i] = R, length of the decreasing run starting at i
+        private long total = 0; // Sum of max(up[i], down[i])
+
+        RewardTracker(int[] ratings) {
+            int n = ratings.length;
+            this.ratings = ratings.clone();
+            this.up = new int[n];
+            this.down = new int[n];
+            for (int i = 0; i < n; i++) {
+                up[i] = i > 0 && ratings[i] > ratings[i - 1] ? up[i - 1] + 1 : 1;
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                down[i] = i + 1 < n && ratings[i] > ratings[i + 1] ? down[i + 1] + 1 : 1;
+                total += Math.max(up[i], down[i]);
+            }
+        }
+
+        void updateRating(int i, int value) {
+            int n = ratings.length;
+            ratings[i] = value;
+
+            // L changes from i to the right. i + 1 is always rechecked, its comparison with i changed.
+            for (int j = i; j < n; j++) {
+                int newUp = j > 0 && ratings[j] > ratings[j - 1] ? up[j - 1] + 1 : 1;
+                if (newUp == up[j] && j > i + 1) break; // The rest of the run is unchanged
+                total += Math.max(newUp, down[j]) - Math.max(up[j], down[j]);
+                up[j] = newUp;
+            }
+
+            // R changes from i to the left, the same way
+            for (int j = i; j >= 0; j--) {
+                int newDown = j + 1 < n && ratings[j] > ratings[j + 1] ? down[j + 1] + 1 : 1;
+                if (newDown == down[j] && j < i - 1) break;
+                total += Math.max(up[j], newDown) - Math.max(up[j], down[j]);
+                down[j] = newDown;
+            }
+        }
+
+        // Minimum rewards for the current ratings
+        long total() {
+            return total;
+        }
+    }
+
     public static void main(String[] args) {
         // Example 1
         int[] ratings1 = {1, 0, 2};
@@ -96,8 +418,18 @@ public class RewardDistribution2a { // Class name RewardDistribution
         // Example 2
         int[] ratings2 = {1, 2, 2};
         System.out.println("Minimum Rewards (Example 2): " + minRewards(ratings2)); // Output: 4
+
+        // Streaming: the same answer without holding the ratings in memory
+        System.out.println("Minimum Rewards (Stream): " + minRewards(IntStream.of(1, 0, 2))); // Output: 5
+
+        // Point update: ratings {1, 2, 2} become {1, 2, 3}
+        RewardTracker tracker = new RewardTracker(ratings2);
+        tracker.updateRating(2, 3);
+        System.out.println("Minimum Rewards (After Update): " + tracker.total()); // Output: 6
     }
 }
 //Output: 
 //Minimum Rewards (Example 1): 5
 //Minimum Rewards (Example 2): 4
+//Minimum Rewards (Stream): 5
+//Minimum Rewards (After Update): 6
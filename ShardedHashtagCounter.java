@@ -0,0 +1,73 @@
+/*
+ * Multi-Core Hashtag Counting with per-thread tables (see HashtagTokenizer.java).
+ *
+ * Algorithm:
+ * 1. Shards:
+ *    - Every worker owns a HashtagCounts table with its own dictionary. Workers never share a
+ *      table, so counting needs no locks, atomics or LongAdder cells, and no cache line is
+ *      written by two cores.
+ * 2. Ingestion:
+ *    - addAll() splits a batch of texts evenly over a fixed thread pool. Worker w always counts
+ *      into shard w, and the call returns once every worker has finished its slice, so a replay
+ *      can feed the firehose batch by batch.
+ * 3. Queries:
+ *    - merged() adds all shards into one fresh table, mapping each shard's ids through the merged
+ *      dictionary. top(k) then runs the bounded-heap top-k of HashtagCounts on the merged table.
+ *    - The merge costs O(distinct hashtags per shard), independent of the number of tweets.
+ */
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+class ShardedHashtagCounter {
+    private final ExecutorService pool; // Worker threads
+    private final HashtagCounts[] shards; // shards[w] is only written by worker w
+
+    ShardedHashtagCounter(int threads) {
+        this.pool = Executors.newFixedThreadPool(threads);
+        this.shards = new HashtagCounts[threads];
+        for (int w = 0; w < threads; w++) {
+            shards[w] = new HashtagCounts(new HashtagDictionary());
+        }
+    }
+
+    // Count the hashtags of a batch of texts in parallel
+    void addAll(List<? extends CharSequence> texts) throws Exception {
+        int threads = shards.length;
+        int count = texts.size();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int w = 0; w < threads; w++) {
+            int from = (int) ((long) count * w / threads);
+            int to = (int) ((long) count * (w + 1) / threads);
+            HashtagCounts shard = shards[w];
+            workers.add(pool.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    shard.add(texts.get(i));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(); // Wait for the worker and rethrow its failure
+        }
+    }
+
+    // All shards added into one table. Must not run concurrently with addAll().
+    HashtagCounts merged() {
+        HashtagCounts merged = new HashtagCounts(new HashtagDictionary());
+        for (HashtagCounts shard : shards) {
+            merged.addAll(shard);
+        }
+        return merged;
+    }
+
+    List<Map.Entry<String, Integer>> top(int k) {
+        return merged().top(k);
+    }
+
+    void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Compact binary topology files, loaded through a memory-mapped FileChannel (see NetworkGraph.java).
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Binary topology format (big-endian):
+//   header: magic "NTOP", version, node count, edge count (4 ints)
+//   node:   ID length (short), ID bytes (UTF-8), x, y (ints)
+//   edge:   source index, destination index, cost, bandwidth (ints)
+class TopologyFile {
+    static final int MAGIC = 0x4E544F50; // "NTOP"
+    static final int VERSION = 1;
+
+    // Write the graph to a file. Node IDs must fit in 65535 UTF-8 bytes; edges to nodes that are not in the graph are left out.
+    static void save(NetworkGraph network, Path file) throws IOException {
+        GraphSnapshot graph = network.snapshot(); // Consistent version even if the network keeps changing
+
+        // Check everything before the file is created, so a save never leaves a file load() rejects
+        byte[][] ids = new byte[graph.nodes.size()][];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = graph.nodes.get(i).id.getBytes(StandardCharsets.UTF_8);
+            if (ids[i].length > 0xFFFF) {
+                throw new IOException("Node ID longer than 65535 UTF-8 bytes: " + graph.nodes.get(i).id.substring(0, 32) + "...");
+            }
+        }
+        int edgeCount = 0;
+        for (Edge edge : graph.edges) {
+            if (graph.indexOf(edge.source) >= 0 && graph.indexOf(edge.destination) >= 0) edgeCount++;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(ids.length);
+            out.writeInt(edgeCount);
+            for (int i = 0; i < ids.length; i++) {
+                Node node = graph.nodes.get(i);
+                out.writeShort(ids[i].length);
+                out.write(ids[i]);
+                out.writeInt(node.x);
+                out.writeInt(node.y);
+            }
+            for (Edge edge : graph.edges) {
+                int source = graph.indexOf(edge.source), destination = graph.indexOf(edge.destination);
+                if (source < 0 || destination < 0) continue; // Edge to a node that was never added, as in GraphSnapshot
+                out.writeInt(source);
+                out.writeInt(destination);
+                out.writeInt(edge.cost);
+                out.writeInt(edge.bandwidth);
+            }
+        }
+    }
+
+    // Read a graph from a file using a memory-mapped buffer
+    static NetworkGraph load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Topology file is too large to map: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        }
+    }
+
+    private static NetworkGraph read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) throw new IOException("Not a topology file");
+            int version = buffer.getInt();
+            if (version != VERSION) throw new IOException("Unsupported topology version: " + version);
+            int nodeCount = buffer.getInt();
+            int edgeCount = buffer.getInt();
+
+            NetworkGraph graph = new NetworkGraph();
+            graph.ensureCapacity(nodeCount, edgeCount);
+            Node[] nodes = new Node[nodeCount];
+            byte[] id = new byte[256];
+            for (int i = 0; i < nodeCount; i++) {
+                int length = buffer.getShort() & 0xFFFF;
+                if (length > id.length) id = new byte[length];
+                buffer.get(id, 0, length);
+                nodes[i] = new Node(new String(id, 0, length, StandardCharsets.UTF_8), buffer.getInt(), buffer.getInt());
+                graph.addNode(nodes[i]);
+            }
+            for (int i = 0; i < edgeCount; i++) {
+                Node source = nodes[buffer.getInt()];
+                Node destination = nodes[buffer.getInt()];
+                graph.addEdge(new Edge(source, destination, buffer.getInt(), buffer.getInt()));
+            }
+            return graph;
+        } catch (RuntimeException e) { // Truncated file or node index out of range
+            throw new IOException("Corrupt topology file", e);
+        }
+    }
+}
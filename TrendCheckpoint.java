@@ -0,0 +1,212 @@
+/*
+ * Binary Checkpoints for the trending window (see HashtagTrends.java).
+ *
+ * A restarted trend job reads the last checkpoint instead of replaying the whole history.
+ *
+ * Algorithm:
+ * 1. Taking a checkpoint without stopping ingestion:
+ *    - checkpoint() runs on the ingest thread and only takes a HashtagTrends.State. Buckets that
+ *      did not change since the previous checkpoint are shared, not copied.
+ *    - Encoding and writing happen on a background thread while ingestion continues.
+ *
+ * 2. Double-buffered files:
+ *    - Checkpoints alternate between two files, trends-0.ckpt and trends-1.ckpt. A crash while
+ *      writing one leaves the other, older checkpoint intact.
+ *    - Every file ends with a CRC32 of its contents. On restart both files are memory-mapped, and
+ *      the valid one with the higher sequence number is used.
+ *
+ * 3. File format (big-endian):
+ *    - Header: magic "HTCK", version, sequence number, bucket width, bucket count, k, newest bucket.
+ *    - Dictionary: number of hashtags n, offsets[0..n] into the character block, then the
+ *      characters of all hashtags back to back as UTF-16. Buckets refer to hashtags by id.
+ *    - Buckets: for every ring slot, the number of entries followed by (id, count) pairs.
+ *    - Trailer: CRC32 of everything before it.
+ */
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+class TrendCheckpoint implements AutoCloseable {
+    private static final int MAGIC = 0x4854434B; // "HTCK"
+    private static final int VERSION = 1;
+
+    private final Path directory; // Holds trends-0.ckpt and trends-1.ckpt
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(); // Background writes, one at a time
+    private HashtagTrends.State lastState; // State of the previous checkpoint, shared with the next one
+    private long sequence = 0; // Sequence number of the next checkpoint
+    private Future<?> lastWrite; // Most recent write, for flush()
+
+    TrendCheckpoint(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    private Path slot(long sequence) {
+        return directory.resolve("trends-" + (sequence % 2) + ".ckpt");
+    }
+
+    // Take a checkpoint of the engine. Call from the thread that feeds it; the file is written in the background.
+    void checkpoint(HashtagTrends trends) {
+        HashtagTrends.State state = trends.state(lastState);
+        lastState = state;
+        long number = sequence++;
+        lastWrite = writer.submit(() -> {
+            write(slot(number), encode(state, number));
+            return null;
+        });
+    }
+
+    // Wait until every checkpoint taken so far is on disk
+    void flush() throws IOException {
+        if (lastWrite == null) return;
+        try {
+            lastWrite.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException("Checkpoint write failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Keep the interrupt for the caller
+            throw new InterruptedIOException("Interrupted while waiting for a checkpoint write");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            writer.shutdown(); // Stop the writer thread even if the last write failed
+            try {
+                writer.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void write(Path file, ByteBuffer data) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (data.hasRemaining()) channel.write(data);
+            channel.force(true); // On disk before the other slot gets overwritten
+        }
+    }
+
+    static ByteBuffer encode(HashtagTrends.State state, long sequence) {
+        // Give every hashtag of the window an id
+        HashtagDictionary dictionary = new HashtagDictionary();
+        int entries = 0;
+        for (Map<String, Integer> bucket : state.buckets) {
+            for (String hashtag : bucket.keySet()) {
+                dictionary.id(hashtag, 0, hashtag.length(), hashtag.hashCode());
+            }
+            entries += bucket.size();
+        }
+        int n = dictionary.size();
+        int chars = dictionary.offsets[n];
+
+        long size = 4 + 4 + 8 + 8 + 4 + 4 + 8 // Header
+                + 4 + 4L * (n + 1) + 2L * chars // Dictionary
+                + 4L * state.bucketCount + 8L * entries // Buckets
+                + 8; // CRC32
+        if (size > Integer.MAX_VALUE) throw new IllegalStateException("Checkpoint larger than 2 GB");
+        ByteBuffer data = ByteBuffer.allocate((int) size);
+
+        data.putInt(MAGIC).putInt(VERSION).putLong(sequence);
+        data.putLong(state.bucketSeconds).putInt(state.bucketCount).putInt(state.k).putLong(state.newestBucket);
+
+        data.putInt(n);
+        for (int id = 0; id <= n; id++) {
+            data.putInt(dictionary.offsets[id]);
+        }
+        data.asCharBuffer().put(dictionary.chars, 0, chars);
+        data.position(data.position() + 2 * chars);
+
+        for (Map<String, Integer> bucket : state.buckets) {
+            data.putInt(bucket.size());
+            for (Map.Entry<String, Integer> entry : bucket.entrySet()) {
+                data.putInt(dictionary.find(entry.getKey())).putInt(entry.getValue());
+            }
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data.array(), 0, data.position());
+        data.putLong(crc.getValue());
+        data.flip();
+        return data;
+    }
+
+    // Engine from the newest valid checkpoint, or null if there is none. Later checkpoints continue its sequence.
+    HashtagTrends restore() throws IOException {
+        MappedByteBuffer best = null;
+        for (int s = 0; s < 2; s++) {
+            MappedByteBuffer data = map(directory.resolve("trends-" + s + ".ckpt"));
+            if (data != null && (best == null || data.getLong(8) > best.getLong(8))) best = data;
+        }
+        if (best == null) return null;
+        sequence = best.getLong(8) + 1;
+        lastState = decode(best);
+        return HashtagTrends.restore(lastState);
+    }
+
+    // The file mapped into memory, or null if it is missing, truncated or corrupt
+    private static MappedByteBuffer map(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) return null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 48 || size > Integer.MAX_VALUE) return null;
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION) return null;
+            CRC32 crc = new CRC32();
+            crc.update(data.duplicate().limit((int) size - 8));
+            return crc.getValue() == data.getLong((int) size - 8) ? data : null;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static HashtagTrends.State decode(ByteBuffer data) {
+        data.position(16);
+        long bucketSeconds = data.getLong();
+        int bucketCount = data.getInt();
+        int k = data.getInt();
+        long newestBucket = data.getLong();
+
+        int n = data.getInt();
+        int[] offsets = new int[n + 1];
+        for (int id = 0; id <= n; id++) {
+            offsets[id] = data.getInt();
+        }
+        CharBuffer chars = data.slice().asCharBuffer(); // Hashtags are read straight from the mapped file
+        String[] hashtags = new String[n];
+        for (int id = 0; id < n; id++) {
+            hashtags[id] = chars.subSequence(offsets[id], offsets[id + 1]).toString();
+        }
+        data.position(data.position() + 2 * offsets[n]);
+
+        Map<String, Integer>[] buckets = new Map[bucketCount];
+        for (int slot = 0; slot < bucketCount; slot++) {
+            int entries = data.getInt();
+            HashMap<String, Integer> bucket = new HashMap<>(entries * 2);
+            for (int e = 0; e < entries; e++) {
+                bucket.put(hashtags[data.getInt()], data.getInt());
+            }
+            buckets[slot] = bucket;
+        }
+        // The restored engine also starts its change counters at 0, so its first checkpoint shares these buckets
+        return new HashtagTrends.State(bucketSeconds, bucketCount, k, newestBucket, buckets, new int[bucketCount]);
+    }
+}
@@ -1,9 +1,23 @@
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.util.*;
 import java.util.regex.*;
 import java.util.stream.Collectors;
 
 class TrendingHashtags4b {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) { // java TrendingHashtags4b tweets.jsonl|tweets.csv [from to]
+            LocalDate from = args.length > 2 ? LocalDate.parse(args[1]) : LocalDate.of(0, 1, 1);
+            LocalDate to = args.length > 2 ? LocalDate.parse(args[2]) : LocalDate.of(9999, 12, 31);
+            int cores = Runtime.getRuntime().availableProcessors();
+            TweetFileIngest ingest = new TweetFileIngest(Math.max(1, cores / 2), Math.max(1, cores / 2), from, to);
+            long begin = System.nanoTime();
+            HashtagCounts counts = ingest.ingest(Paths.get(args[0]));
+            System.out.printf("Ingested %d tweets in %.1f s%n", ingest.tweets(), (System.nanoTime() - begin) / 1e9);
+            System.out.println("Top hashtags: " + counts.top(3));
+            return;
+        }
+
         List<Tweet> tweets = Arrays.asList(
             new Tweet(135, 13, "Enjoying a great start to the day. #HappyDay #MorningVibes", "2024-02-01"),
             new Tweet(136, 14, "Another #HappyDay with good vibes! #FeelGood", "2024-02-03"),
@@ -15,6 +29,54 @@ class TrendingHashtags4b {
         );
 
         findTopTrendingHashtags(tweets);
+
+        // Streaming: trending hashtags of the last 7 days, updated tweet by tweet
+        HashtagTrends trends = new HashtagTrends(86400, 7, 3);
+        for (Tweet tweet : tweets) {
+            trends.add(tweet);
+        }
+        System.out.println("Trending (last 7 days): " + trends.trending());
+
+        // Approximate: fixed memory however many distinct hashtags there are
+        HeavyHitters heavyHitters = new HeavyHitters(0.001, 0.01, 100);
+        Pattern hashtagPattern = Pattern.compile("#\\w+");
+        for (Tweet tweet : tweets) {
+            Matcher matcher = hashtagPattern.matcher(tweet.text);
+            while (matcher.find()) {
+                heavyHitters.add(matcher.group());
+            }
+        }
+        System.out.println("Heavy hitters: " + heavyHitters.top(3));
+
+        // Dictionary-encoded: hashtags become int ids counted in an int[], no String per match
+        HashtagCounts hashtagCounts = new HashtagCounts(new HashtagDictionary());
+        for (Tweet tweet : tweets) {
+            hashtagCounts.add(tweet.text);
+        }
+        System.out.println("Top hashtags (dictionary): " + hashtagCounts.top(3));
+
+        // Columnar: February 2024 found by binary search over the epoch-day index
+        TweetStore store = new TweetStore();
+        for (Tweet tweet : tweets) {
+            store.add(tweet);
+        }
+        HashtagCounts february = store.hashtagCounts(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+        System.out.println("Top hashtags (February 2024, columnar): " + february.top(3));
+
+        // Multi-core: every worker counts into its own table, merged for the query
+        ShardedHashtagCounter sharded = new ShardedHashtagCounter(Runtime.getRuntime().availableProcessors());
+        try {
+            List<String> texts = new ArrayList<>();
+            for (Tweet tweet : tweets) {
+                texts.add(tweet.text);
+            }
+            sharded.addAll(texts);
+            System.out.println("Top hashtags (sharded): " + sharded.top(3));
+        } catch (Exception e) {
+            System.out.println("Sharded counting failed: " + e.getMessage());
+        } finally {
+            sharded.shutdown();
+        }
     }
 
     public static void findTopTrendingHashtags(List<Tweet> tweets) {
@@ -49,17 +111,3 @@ class TrendingHashtags4b {
         System.out.println("+------------+-------+");
     }
 }
-
-class Tweet {
-    int userId;
-    int tweetId;
-    String text;
-    String date;
-
-    public Tweet(int userId, int tweetId, String text, String date) {
-        this.userId = userId;
-        this.tweetId = tweetId;
-        this.text = text;
-        this.date = date;
-    }
-}
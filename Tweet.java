@@ -0,0 +1,17 @@
+/*
+ * One tweet of the trending hashtags program (see TrendingHashtags4b.java).
+ */
+
+class Tweet {
+    int userId;
+    int tweetId;
+    String text;
+    String date;
+
+    public Tweet(int userId, int tweetId, String text, String date) {
+        this.userId = userId;
+        this.tweetId = tweetId;
+        this.text = text;
+        this.date = date;
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Pipelined Bulk Ingest of tweet dumps (JSONL or CSV) into hashtag counts.
+ *
+ * Pipeline (every arrow is a bounded queue, so a slow stage holds back the stages before it):
+ *
+ *     reader --(line-aligned byte slices)--> parsers --(decoded texts)--> counters
+ *
+ * Algorithm:
+ * 1. Reader (one thread):
+ *    - Maps the file segment by segment through a read-only FileChannel and cuts every segment
+ *      into slices of about BATCH_BYTES that end on a '\n', so no line is split between slices.
+ *      The partial line at the end of a segment is the start of the next segment.
+ *
+ * 2. Parsers:
+ *    - Split a slice into lines and pull out the "text" and "date" fields. JSONL lines are
+ *      objects with "text" and "date" keys, and CSV files have a header row naming the columns
+ *      (quoted fields with "" escapes are supported, but a field may not span lines).
+ *    - The date is turned into an epoch day straight from its "yyyy-MM-dd" digits, and tweets
+ *      outside the requested day range are dropped here.
+ *    - The texts of a slice are copied as UTF-8 into one byte[] with offsets (a TextBatch).
+ *
+ * 3. Counters:
+ *    - Each counter thread owns a HashtagCounts table and tokenizes the UTF-8 bytes directly
+ *      (see HashtagTokenizer.java). The tables are merged once all input is consumed.
+ *
+ * 4. Shutdown:
+ *    - The reader sends one end marker per parser. The last parser to finish sends one end
+ *      marker per counter. If any stage fails, all stages are interrupted and the failure is
+ *      rethrown.
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+class TweetFileIngest {
+    static final int SEGMENT_BYTES = 1 << 26; // Bytes mapped at once (64 MB)
+    static final int BATCH_BYTES = 1 << 20; // Bytes per slice handed to a parser (1 MB)
+
+    private static final ByteBuffer END_OF_SLICES = ByteBuffer.allocate(0); // End marker for parsers
+    private static final TextBatch END_OF_TEXTS = new TextBatch(0); // End marker for counters
+
+    private final int parsers; // Parser threads
+    private final int counters; // Counter threads
+    private final int fromDay, toDay; // Epoch days to keep, both inclusive
+    private final AtomicLong tweets = new AtomicLong(); // Tweets counted by the last ingest
+
+    TweetFileIngest(int parsers, int counters, LocalDate from, LocalDate to) {
+        if (parsers <= 0 || counters <= 0) throw new IllegalArgumentException("Parsers and counters must be positive");
+        this.parsers = parsers;
+        this.counters = counters;
+        this.fromDay = (int) from.toEpochDay();
+        this.toDay = (int) to.toEpochDay();
+    }
+
+    // Texts of the tweets of one slice, as UTF-8
+    private static class TextBatch {
+        byte[] bytes; // All texts back to back
+        int[] offsets = new int[64]; // Text i is bytes[offsets[i] .. offsets[i + 1])
+        int size = 0; // Number of texts
+
+        TextBatch(int capacity) {
+            bytes = new byte[Math.max(capacity, 64)]; // Texts are at most as long as the slice they come from
+        }
+
+        void put(int b) {
+            int end = offsets[size + 1];
+            if (end == bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            bytes[end] = (byte) b;
+            offsets[size + 1] = end + 1;
+        }
+
+        void endText() {
+            size++;
+            if (size + 1 == offsets.length) offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            offsets[size + 1] = offsets[size];
+        }
+    }
+
+    // Number of tweets in the day range counted by the last ingest()
+    long tweets() {
+        return tweets.get();
+    }
+
+    HashtagCounts ingest(Path file) throws IOException, InterruptedException {
+        boolean csv = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv");
+        tweets.set(0);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int[] columns = csv ? csvColumns(channel) : null; // Positions of the text and date columns
+
+            BlockingQueue<ByteBuffer> slices = new ArrayBlockingQueue<>(2 * parsers);
+            BlockingQueue<TextBatch> texts = new ArrayBlockingQueue<>(2 * counters);
+            AtomicInteger parsersLeft = new AtomicInteger(parsers);
+            HashtagCounts[] tables = new HashtagCounts[counters];
+
+            ExecutorService pool = Executors.newFixedThreadPool(1 + parsers + counters);
+            CompletionService<Object> stages = new ExecutorCompletionService<>(pool);
+            try {
+                stages.submit(() -> {
+                    read(channel, columns != null ? columns[2] : 0, slices);
+                    return null;
+                });
+                for (int p = 0; p < parsers; p++) {
+                    stages.submit(() -> {
+                        for (ByteBuffer slice = slices.take(); slice != END_OF_SLICES; slice = slices.take()) {
+                            texts.put(columns != null ? parseCsv(slice, columns) : parseJson(slice));
+                        }
+                        if (parsersLeft.decrementAndGet() == 0) {
+                            for (int c = 0; c < counters; c++) texts.put(END_OF_TEXTS);
+                        }
+                        return null;
+                    });
+                }
+                for (int c = 0; c < counters; c++) {
+                    HashtagCounts table = tables[c] = new HashtagCounts(new HashtagDictionary());
+                    stages.submit(() -> {
+                        for (TextBatch batch = texts.take(); batch != END_OF_TEXTS; batch = texts.take()) {
+                            for (int i = 0; i < batch.size; i++) {
+                                table.add(batch.bytes, batch.offsets[i], batch.offsets[i + 1]);
+                            }
+                            tweets.addAndGet(batch.size);
+                        }
+                        return null;
+                    });
+                }
+                for (int s = 0; s < 1 + parsers + counters; s++) {
+                    stages.take().get(); // Stages in the order they finish, so the first failure is seen at once
+                }
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) throw (IOException) cause;
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                throw new IOException("Ingest failed: " + cause, cause);
+            } finally {
+                pool.shutdownNow(); // Interrupts stages blocked on a queue after a failure
+            }
+
+            HashtagCounts merged = new HashtagCounts(new HashtagDictionary());
+            for (HashtagCounts table : tables) {
+                merged.addAll(table);
+            }
+            return merged;
+        }
+    }
+
+    // Reader stage: map the file from `start` and cut it into line-aligned slices
+    private void read(FileChannel channel, long start, BlockingQueue<ByteBuffer> slices) throws IOException, InterruptedException {
+        long size = channel.size();
+        long position = start;
+        long segmentBytes = SEGMENT_BYTES;
+        while (position < size) {
+            long length = Math.min(segmentBytes, size - position);
+            ByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            int end = (int) length;
+            if (position + length < size) {
+                end = lastNewline(segment, 0, end) + 1;
+                if (end == 0) { // A single line longer than the segment: map more of it
+                    if (segmentBytes == Integer.MAX_VALUE) throw new IOException("Line longer than 2 GB");
+                    segmentBytes = Math.min(segmentBytes * 2, Integer.MAX_VALUE);
+                    continue;
+                }
+            }
+            for (int from = 0; from < end; ) {
+                int to = end;
+                if (to - from > BATCH_BYTES) {
+                    int newline = lastNewline(segment, from, from + BATCH_BYTES);
+                    if (newline >= from) to = newline + 1;
+                }
+                slices.put(segment.duplicate().position(from).limit(to).slice());
+                from = to;
+            }
+            position += end;
+            segmentBytes = SEGMENT_BYTES;
+        }
+        for (int p = 0; p < parsers; p++) slices.put(END_OF_SLICES);
+    }
+
+    // Position of the last '\n' in buffer[from, to), or from - 1 if there is none
+    private static int lastNewline(ByteBuffer buffer, int from, int to) {
+        int i = to - 1;
+        while (i >= from && buffer.get(i) != '\n') i--;
+        return i;
+    }
+
+    // Parser stage for JSONL: one object per line with "text" and "date" string fields
+    private TextBatch parseJson(ByteBuffer slice) {
+        TextBatch batch = new TextBatch(slice.limit());
+        int limit = slice.limit();
+        int line = 0;
+        while (line < limit) {
+            int lineEnd = line;
+            while (lineEnd < limit && slice.get(lineEnd) != '\n') lineEnd++;
+            int i = skipSpace(slice, line, lineEnd);
+            if (i < lineEnd && slice.get(i) == '{') {
+                parseJsonObject(slice, i + 1, lineEnd, batch);
+            }
+            line = lineEnd + 1;
+        }
+        return batch;
+    }
+
+    // Walk the top-level keys of one object and keep the tweet if its date is in range
+    private void parseJsonObject(ByteBuffer line, int i, int end, TextBatch batch) {
+        int day = Integer.MIN_VALUE; // No date yet
+        int textFrom = -1; // Start of the text string (after its opening quote), if found
+        while (true) {
+            i = skipSpace(line, i, end);
+            if (i >= end || line.get(i) != '"') break; // '}' or malformed
+            int keyFrom = i + 1;
+            i = skipString(line, i, end);
+            int keyTo = i - 1; // Position of the closing quote
+            i = skipSpace(line, i, end);
+            if (i >= end || line.get(i) != ':') break;
+            i = skipSpace(line, i + 1, end);
+            if (i < end && line.get(i) == '"') {
+                if (equalsAscii(line, keyFrom, keyTo, "text")) textFrom = i + 1;
+                else if (equalsAscii(line, keyFrom, keyTo, "date")) day = epochDay(line, i + 1, end);
+                i = skipString(line, i, end);
+            } else {
+                i = skipValue(line, i, end);
+            }
+            i = skipSpace(line, i, end);
+            if (i < end && line.get(i) == ',') i++;
+        }
+        if (textFrom < 0 || day < fromDay || day > toDay) return;
+
+        for (int j = textFrom; j < end; j++) {
+            int b = line.get(j);
+            if (b == '"') break;
+            if (b == '\\' && j + 1 < end) {
+                int escaped = line.get(++j);
+                switch (escaped) {
+                    case 'n': case 'r': case 't': case 'b': case 'f': batch.put(' '); break; // Whitespace ends a hashtag either way
+                    case 'u': {
+                        int code = j + 4 < end ? hex4(line, j + 1) : -1;
+                        if (code < 0) break;
+                        j += 4;
+                        putUtf8(batch, code);
+                        break;
+                    }
+                    default: batch.put(escaped); // \" \\ \/
+                }
+            } else {
+                batch.put(b);
+            }
+        }
+        batch.endText();
+    }
+
+    // Position after the string that starts with the quote at i
+    private static int skipString(ByteBuffer line, int i, int end) {
+        for (i++; i < end; i++) {
+            int b = line.get(i);
+            if (b == '\\') i++;
+            else if (b == '"') return i + 1;
+        }
+        return end;
+    }
+
+    // Position after a number, literal, object or array value starting at i
+    private static int skipValue(ByteBuffer line, int i, int end) {
+        int depth = 0;
+        for (; i < end; i++) {
+            int b = line.get(i);
+            if (b == '"') {
+                i = skipString(line, i, end) - 1;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (depth == 0) return i;
+                depth--;
+            } else if (b == ',' && depth == 0) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int skipSpace(ByteBuffer line, int i, int end) {
+        while (i < end && (line.get(i) == ' ' || line.get(i) == '\t' || line.get(i) == '\r')) i++;
+        return i;
+    }
+
+    private static boolean equalsAscii(ByteBuffer line, int from, int to, String text) {
+        if (to - from != text.length()) return false;
+        for (int i = 0; i < text.length(); i++) {
+            if (line.get(from + i) != text.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static int hex4(ByteBuffer line, int i) {
+        int code = 0;
+        for (int k = 0; k < 4; k++) {
+            int digit = Character.digit(line.get(i + k), 16);
+            if (digit < 0) return -1;
+            code = code * 16 + digit;
+        }
+        return code;
+    }
+
+    // A \\uXXXX escape as UTF-8. Only ASCII can be part of a hashtag, so surrogate halves are encoded one by one.
+    private static void putUtf8(TextBatch batch, int code) {
+        if (code < 0x80) {
+            batch.put(code);
+        } else if (code < 0x800) {
+            batch.put(0xC0 | code >> 6);
+            batch.put(0x80 | code & 0x3F);
+        } else {
+            batch.put(0xE0 | code >> 12);
+            batch.put(0x80 | code >> 6 & 0x3F);
+            batch.put(0x80 | code & 0x3F);
+        }
+    }
+
+    // Epoch day of a "yyyy-MM-dd" date at line[i], or Integer.MIN_VALUE if it is not one
+    static int epochDay(ByteBuffer line, int i, int end) {
+        if (i + 10 > end || line.get(i + 4) != '-' || line.get(i + 7) != '-') return Integer.MIN_VALUE;
+        int year = digits(line, i, 4), month = digits(line, i + 5, 2), day = digits(line, i + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) return Integer.MIN_VALUE;
+        // Days from civil date (proleptic Gregorian calendar), with March as the first month of the year
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int digits(ByteBuffer line, int i, int count) {
+        int value = 0;
+        for (int k = 0; k < count; k++) {
+            int b = line.get(i + k);
+            if (b < '0' || b > '9') return -1;
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    // Read the CSV header: {text column, date column, byte position of the first data row}
+    private static int[] csvColumns(FileChannel channel) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate((int) Math.min(channel.size(), 1 << 16));
+        channel.read(head, 0);
+        head.flip();
+        int end = 0;
+        while (end < head.limit() && head.get(end) != '\n') end++;
+        String[] names = StandardCharsets.UTF_8.decode(head.duplicate().limit(end)).toString().trim().split(",");
+        int text = -1, date = -1;
+        for (int c = 0; c < names.length; c++) {
+            String name = names[c].trim().replace("\"", "");
+            if (name.equalsIgnoreCase("text")) text = c;
+            else if (name.equalsIgnoreCase("date")) date = c;
+        }
+        if (text < 0 || date < 0) throw new IOException("CSV header needs \"text\" and \"date\" columns");
+        return new int[]{text, date, Math.min(end + 1, head.limit())};
+    }
+
+    // Parser stage for CSV: fields separated by ',', optionally quoted with "" as an escaped quote
+    private TextBatch parseCsv(ByteBuffer slice, int[] columns) {
+        TextBatch batch = new TextBatch(slice.limit());
+        int limit = slice.limit();
+        int i = 0;
+        while (i < limit) {
+            int textFrom = -1, textTo = -1, day = Integer.MIN_VALUE;
+            boolean textQuoted = false;
+            int column = 0;
+            while (true) {
+                int from = i, to;
+                boolean quoted = i < limit && slice.get(i) == '"';
+                if (quoted) {
+                    from = i + 1;
+                    for (i++; i < limit; i++) { // A quoted field may hold commas and "" pairs
+                        if (slice.get(i) == '"') {
+                            if (i + 1 < limit && slice.get(i + 1) == '"') i++;
+                            else break;
+                        }
+                    }
+                    to = i;
+                    while (i < limit && slice.get(i) != ',' && slice.get(i) != '\n') i++;
+                } else {
+                    while (i < limit && slice.get(i) != ',' && slice.get(i) != '\n') i++;
+                    to = i;
+                    if (to > from && slice.get(to - 1) == '\r') to--;
+                }
+                if (column == columns[0]) {
+                    textFrom = from;
+                    textTo = to;
+                    textQuoted = quoted;
+                } else if (column == columns[1]) {
+                    day = epochDay(slice, from, to);
+                }
+                column++;
+                if (i >= limit || slice.get(i) == '\n') break;
+                i++; // Skip the ','
+            }
+            i++; // Skip the '\n'
+
+            if (textFrom < 0 || day < fromDay || day > toDay) continue;
+            for (int j = textFrom; j < textTo; j++) {
+                int b = slice.get(j);
+                batch.put(b);
+                if (b == '"' && textQuoted) j++; // "" inside a quoted field is one quote
+            }
+            batch.endText();
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Columnar Tweet Store with an epoch-day time index (see TrendingHashtags4b.java).
+ *
+ * A Tweet object keeps its date as a String, and finding the tweets of a month means parsing
+ * or prefix-matching every date. The store keeps one array per field instead.
+ *
+ * Algorithm:
+ * 1. Columns:
+ *    - epochDay[i], userId[i] and tweetId[i] are plain int arrays. The date is parsed once, when
+ *      the tweet is added, into days since 1970-01-01.
+ *    - All texts are stored back to back in one char[] arena, and tweet i's text is
+ *      text[textOffsets[i] .. textOffsets[i + 1]). No per-tweet objects or headers are kept.
+ *
+ * 2. Time Index:
+ *    - byDay lists the tweet positions ordered by epoch day, and sortedDays holds their days.
+ *      While tweets arrive in date order, the positions are already sorted and no index is built.
+ *      Otherwise the index is rebuilt by sorting (day << 32 | position) as longs on the next query.
+ *    - A date range [from, to] is found with two binary searches over sortedDays, and only the
+ *      tweets in that slice are scanned.
+ */
+
+import java.nio.CharBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+class TweetStore {
+    private int size = 0; // Number of tweets
+    private int[] epochDay = new int[64]; // Days since 1970-01-01
+    private int[] userId = new int[64];
+    private int[] tweetId = new int[64];
+    private char[] text = new char[4096]; // Texts of all tweets back to back
+    private int[] textOffsets = new int[65]; // Tweet i's text is text[textOffsets[i] .. textOffsets[i + 1])
+
+    private boolean inDayOrder = true; // Tweets were added in non-decreasing day order
+    private int[] byDay; // Tweet positions ordered by day, null until needed
+    private int[] sortedDays; // sortedDays[j] = epochDay[byDay[j]]
+
+    void add(Tweet tweet) {
+        add(tweet.userId, tweet.tweetId, (int) LocalDate.parse(tweet.date).toEpochDay(), tweet.text);
+    }
+
+    void add(int user, int id, int day, CharSequence tweetText) {
+        if (size + 1 == textOffsets.length) {
+            int capacity = epochDay.length * 2;
+            epochDay = Arrays.copyOf(epochDay, capacity);
+            userId = Arrays.copyOf(userId, capacity);
+            tweetId = Arrays.copyOf(tweetId, capacity);
+            textOffsets = Arrays.copyOf(textOffsets, capacity + 1);
+        }
+        int start = textOffsets[size];
+        int length = tweetText.length();
+        if (start + length > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, start + length));
+        }
+        for (int i = 0; i < length; i++) {
+            text[start + i] = tweetText.charAt(i);
+        }
+
+        if (size > 0 && day < epochDay[size - 1]) inDayOrder = false;
+        epochDay[size] = day;
+        userId[size] = user;
+        tweetId[size] = id;
+        textOffsets[size + 1] = start + length;
+        size++;
+        byDay = null; // Rebuilt on the next range query
+    }
+
+    int size() {
+        return size;
+    }
+
+    int epochDay(int i) {
+        return epochDay[i];
+    }
+
+    int userId(int i) {
+        return userId[i];
+    }
+
+    int tweetId(int i) {
+        return tweetId[i];
+    }
+
+    String text(int i) {
+        return new String(text, textOffsets[i], textOffsets[i + 1] - textOffsets[i]);
+    }
+
+    private void buildIndex() {
+        if (byDay != null) return;
+        if (inDayOrder) {
+            byDay = new int[size];
+            for (int i = 0; i < size; i++) {
+                byDay[i] = i;
+            }
+            sortedDays = Arrays.copyOf(epochDay, size);
+            return;
+        }
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = (long) epochDay[i] << 32 | i; // Sorting the packed longs sorts by day, then position
+        }
+        Arrays.sort(keys);
+        byDay = new int[size];
+        sortedDays = new int[size];
+        for (int j = 0; j < size; j++) {
+            byDay[j] = (int) keys[j];
+            sortedDays[j] = (int) (keys[j] >> 32);
+        }
+    }
+
+    // First index j of sortedDays with sortedDays[j] >= day
+    private int lowerBound(long day) {
+        int low = 0, high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedDays[mid] < day) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    // Calls positions.accept(i) for every tweet from day `from` to day `to`, both inclusive
+    void forEachInRange(int from, int to, IntConsumer positions) {
+        buildIndex();
+        int end = lowerBound((long) to + 1);
+        for (int j = lowerBound(from); j < end; j++) {
+            positions.accept(byDay[j]);
+        }
+    }
+
+    int countInRange(LocalDate from, LocalDate to) {
+        buildIndex();
+        return Math.max(0, lowerBound(to.toEpochDay() + 1) - lowerBound(from.toEpochDay()));
+    }
+
+    // Hashtag counts of the tweets from `from` to `to`, both inclusive
+    HashtagCounts hashtagCounts(LocalDate from, LocalDate to) {
+        HashtagCounts counts = new HashtagCounts(new HashtagDictionary());
+        CharBuffer arena = CharBuffer.wrap(text); // One view over all texts
+        forEachInRange((int) from.toEpochDay(), (int) to.toEpochDay(),
+                i -> counts.add(arena, textOffsets[i], textOffsets[i + 1]));
+        return counts;
+    }
+}
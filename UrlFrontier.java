@@ -0,0 +1,349 @@
+/*
+ * URL Frontier with de-duplication for large crawls (see WebCrawler6b.java).
+ *
+ * Keeps the set of URLs ever seen and the queue of URLs still to crawl, so a crawl of tens of
+ * millions of URLs runs in a bounded amount of heap.
+ *
+ * Algorithm:
+ * 1. Canonical URLs:
+ *    - Links are resolved against their page, and the scheme and host are lower-cased. Default
+ *      ports, the fragment and "." / ".." path segments are removed, an empty path becomes "/",
+ *      and percent escapes use upper-case hex. Different spellings of a page then count as one URL.
+ *
+ * 2. Seen set: a Bloom filter in front of an exact set on disk:
+ *    - The Bloom filter is sized for the expected number of URLs and the false-positive rate.
+ *      When it says "never seen", the URL is new for sure, and the exact set is only written to.
+ *    - Every new URL is appended to a log file as UTF-8 bytes. The exact set is an open-addressing
+ *      hash table in a memory-mapped file: each 16-byte slot holds the URL's 64-bit hash and the
+ *      offset and length of its bytes in the log. The table doubles into a new file at half load.
+ *    - When the filter says "maybe seen", the slots with the same hash are probed, and the URL is a
+ *      duplicate only if its bytes match the log. The table and the log live in the OS page cache,
+ *      not on the heap, so the heap holds about 10 bits of Bloom filter per URL.
+ *
+ * 3. Pending queue with spill to disk:
+ *    - The queue is a head (being polled), a list of segment files, and a tail (being filled).
+ *    - When the tail reaches its share of the memory budget, it is written to a new segment
+ *      file. When the head runs empty, it is refilled from the oldest segment, or from the tail
+ *      once no segments are left. URLs therefore come out in the order they went in.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+class UrlFrontier implements Closeable {
+    private static final int SLOT_BYTES = 16; // 64-bit hash, then (log offset << 24 | length)
+    private static final int CHUNK_SLOTS = 1 << 26; // Slots per mapping, so one mapping is at most 1 GB
+    private static final int MAX_URL_BYTES = (1 << 24) - 1; // Longest URL a slot can refer to
+
+    // A URL waiting to be crawled
+    static class Entry {
+        final String url; // Canonical URL
+        final int depth; // Links followed from a seed to reach it
+
+        Entry(String url, int depth) {
+            this.url = url;
+            this.depth = depth;
+        }
+    }
+
+    private final Path directory; // Seen set and segment files, deleted with the directory by close()
+    private final int maxInMemory; // URLs kept on the heap by the queue
+
+    // Seen set
+    private final long[] bloom; // Bloom filter bits
+    private final long bloomBits; // Number of bits
+    private final int bloomHashes; // Bits set per URL
+    private final FileChannel log; // UTF-8 bytes of every seen URL, back to back
+    private final ByteBuffer logBuffer = ByteBuffer.allocate(1 << 16); // Appended bytes not yet in the file
+    private long logSize = 0; // Bytes in the log, including logBuffer
+    private MappedByteBuffer[] table; // Hash table slots, CHUNK_SLOTS per mapping
+    private long tableSlots; // Number of slots, a power of two
+    private int tableNumber = 0; // Name of the next table file
+    private long seen = 0; // URLs in the seen set
+
+    // Pending queue
+    private final ArrayDeque<Entry> head = new ArrayDeque<>(); // Polled from
+    private final ArrayDeque<Path> segments = new ArrayDeque<>(); // Spilled URLs, oldest first
+    private final ArrayDeque<Entry> tail = new ArrayDeque<>(); // Added to
+    private long pendingOnDisk = 0; // URLs in segment files
+    private int segmentNumber = 0; // Name of the next segment file
+
+    // expectedUrls and falsePositiveRate size the Bloom filter; maxInMemory bounds the URLs held on the heap
+    UrlFrontier(Path directory, long expectedUrls, double falsePositiveRate, int maxInMemory) throws IOException {
+        if (expectedUrls <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1 || maxInMemory < 2) {
+            throw new IllegalArgumentException("Invalid frontier sizing");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxInMemory = maxInMemory;
+
+        // m = -n ln p / (ln 2)^2 bits and k = (m / n) ln 2 hash functions
+        long bits = (long) Math.ceil(-expectedUrls * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bloom = new long[(int) Math.min((bits + 63) / 64, Integer.MAX_VALUE - 8)];
+        this.bloomBits = (long) bloom.length * 64;
+        this.bloomHashes = Math.max(1, (int) Math.round((double) bloomBits / expectedUrls * Math.log(2)));
+
+        this.log = FileChannel.open(directory.resolve("seen.log"), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        long slots = 1024;
+        while (slots < 2 * expectedUrls) slots *= 2; // At most half full until the crawl outgrows its estimate
+        this.table = mapTable(slots);
+        this.tableSlots = slots;
+    }
+
+    // Canonical form of a link found on page `base` (null for seeds), or null if it is not an http(s) URL
+    static String canonicalize(String link, URI base) {
+        URI uri;
+        try {
+            uri = (base == null ? new URI(link.trim()) : base.resolve(link.trim())).normalize();
+        } catch (Exception e) { // URISyntaxException, or IllegalArgumentException from resolve()
+            return null;
+        }
+        String scheme = uri.getScheme() == null ? null : uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!"http".equals(scheme) && !"https".equals(scheme) || uri.getHost() == null) return null;
+
+        StringBuilder url = new StringBuilder(scheme).append("://").append(uri.getHost().toLowerCase(Locale.ROOT));
+        int port = uri.getPort();
+        if (port != -1 && !(port == 80 && scheme.equals("http")) && !(port == 443 && scheme.equals("https"))) {
+            url.append(':').append(port);
+        }
+        String path = uri.getRawPath();
+        appendEscaped(url, path == null || path.isEmpty() ? "/" : path);
+        if (uri.getRawQuery() != null) appendEscaped(url.append('?'), uri.getRawQuery());
+        return url.toString();
+    }
+
+    // Append text with the hex digits of every percent escape in upper case
+    private static void appendEscaped(StringBuilder url, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean hexDigit = i >= 2 && text.charAt(i - 2) == '%' || i >= 1 && text.charAt(i - 1) == '%';
+            url.append(hexDigit ? Character.toUpperCase(c) : c);
+        }
+    }
+
+    // Add a canonical URL found at the given depth. Returns true if it is new and was queued, false if it was seen before.
+    boolean add(String url, int depth) {
+        byte[] bytes = url.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_URL_BYTES) return false; // Too long to crawl
+        long hash = Hash64.of(url, 0);
+        try {
+            if (mightContain(hash)) {
+                long mask = tableSlots - 1;
+                for (long slot = hash & mask, ref; (ref = refAt(table, slot)) != 0; slot = (slot + 1) & mask) {
+                    if (hashAt(table, slot) == hash && matches(ref, bytes)) return false;
+                }
+                // Not in the table: a Bloom filter false positive
+            }
+            markSeen(hash);
+            if (++seen > tableSlots / 2) growTable();
+            insert(table, tableSlots, hash, append(bytes));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        enqueue(new Entry(url, depth));
+        return true;
+    }
+
+    // Next URL to crawl, or null when the frontier is empty
+    Entry poll() {
+        if (head.isEmpty()) {
+            if (!segments.isEmpty()) {
+                loadSegment();
+            } else {
+                head.addAll(tail);
+                tail.clear();
+            }
+        }
+        return head.poll();
+    }
+
+    // URLs waiting in the queue
+    long size() {
+        return head.size() + pendingOnDisk + tail.size();
+    }
+
+    // URLs seen so far
+    long seenCount() {
+        return seen;
+    }
+
+    private void enqueue(Entry entry) {
+        tail.add(entry);
+        if (tail.size() >= maxInMemory / 2) spillTail();
+    }
+
+    // Write the tail to a new segment file: one "depth<TAB>url" line per URL
+    private void spillTail() {
+        Path segment = directory.resolve("segment-" + (segmentNumber++) + ".txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(segment, StandardCharsets.UTF_8)) {
+            for (Entry entry : tail) {
+                writer.write(entry.depth + "\t" + entry.url);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.add(segment);
+        pendingOnDisk += tail.size();
+        tail.clear();
+    }
+
+    private void loadSegment() {
+        Path segment = segments.poll();
+        try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                head.add(new Entry(line.substring(tab + 1), Integer.parseInt(line.substring(0, tab))));
+            }
+            Files.delete(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pendingOnDisk -= head.size();
+    }
+
+    private Path tableFile(int number) {
+        return directory.resolve("seen-" + number + ".table");
+    }
+
+    // A new, zeroed table file of the given number of slots, mapped chunk by chunk
+    private MappedByteBuffer[] mapTable(long slots) throws IOException {
+        try (FileChannel channel = FileChannel.open(tableFile(tableNumber++), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((slots + CHUNK_SLOTS - 1) / CHUNK_SLOTS)];
+            for (int c = 0; c < chunks.length; c++) {
+                long first = (long) c * CHUNK_SLOTS;
+                long size = Math.min(CHUNK_SLOTS, slots - first) * SLOT_BYTES;
+                chunks[c] = channel.map(FileChannel.MapMode.READ_WRITE, first * SLOT_BYTES, size); // Stays valid after close
+            }
+            return chunks;
+        }
+    }
+
+    private static long hashAt(MappedByteBuffer[] chunks, long slot) {
+        return chunks[(int) (slot / CHUNK_SLOTS)].getLong((int) (slot % CHUNK_SLOTS) * SLOT_BYTES);
+    }
+
+    // (log offset << 24 | length) of the URL in the slot, or 0 if the slot is empty
+    private static long refAt(MappedByteBuffer[] chunks, long slot) {
+        return chunks[(int) (slot / CHUNK_SLOTS)].getLong((int) (slot % CHUNK_SLOTS) * SLOT_BYTES + 8);
+    }
+
+    // Store the URL in the first empty slot from its home slot on (linear probing)
+    private static void insert(MappedByteBuffer[] chunks, long slots, long hash, long ref) {
+        long slot = hash & (slots - 1);
+        while (refAt(chunks, slot) != 0) {
+            slot = (slot + 1) & (slots - 1);
+        }
+        chunks[(int) (slot / CHUNK_SLOTS)].putLong((int) (slot % CHUNK_SLOTS) * SLOT_BYTES, hash)
+                .putLong((int) (slot % CHUNK_SLOTS) * SLOT_BYTES + 8, ref);
+    }
+
+    // Rehash into a table file of twice the size; the log is not touched
+    private void growTable() throws IOException {
+        MappedByteBuffer[] grown = mapTable(tableSlots * 2);
+        for (long slot = 0; slot < tableSlots; slot++) {
+            long ref = refAt(table, slot);
+            if (ref != 0) insert(grown, tableSlots * 2, hashAt(table, slot), ref);
+        }
+        table = grown;
+        tableSlots *= 2;
+        try {
+            Files.deleteIfExists(tableFile(tableNumber - 2));
+        } catch (IOException e) {
+            // Some systems keep a mapped file until it is unmapped; close() deletes it then
+        }
+    }
+
+    // Append the URL bytes to the log and return their reference
+    private long append(byte[] bytes) throws IOException {
+        long offset = logSize;
+        if (bytes.length > logBuffer.remaining()) flushLog();
+        if (bytes.length > logBuffer.capacity()) {
+            writeFully(ByteBuffer.wrap(bytes), offset);
+        } else {
+            logBuffer.put(bytes);
+        }
+        logSize += bytes.length;
+        return offset << 24 | bytes.length;
+    }
+
+    private void flushLog() throws IOException {
+        logBuffer.flip();
+        writeFully(logBuffer, logSize - logBuffer.remaining());
+        logBuffer.clear();
+    }
+
+    private void writeFully(ByteBuffer data, long position) throws IOException {
+        while (data.hasRemaining()) {
+            position += log.write(data, position);
+        }
+    }
+
+    // True if the logged URL at ref has exactly these bytes
+    private boolean matches(long ref, byte[] bytes) throws IOException {
+        if ((int) (ref & MAX_URL_BYTES) != bytes.length) return false;
+        long offset = ref >>> 24;
+        if (offset + bytes.length > logSize - logBuffer.position()) flushLog(); // Still in the buffer
+        ByteBuffer logged = ByteBuffer.allocate(bytes.length);
+        while (logged.hasRemaining()) {
+            if (log.read(logged, offset + logged.position()) < 0) throw new IOException("Truncated URL log");
+        }
+        return Arrays.equals(logged.array(), bytes);
+    }
+
+    private boolean mightContain(long hash) {
+        int h1 = (int) hash, h2 = (int) (hash >>> 32); // Bit i is h1 + i * h2 (double hashing)
+        for (int i = 0; i < bloomHashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bloomBits);
+            if ((bloom[(int) (bit >>> 6)] & 1L << bit) == 0) return false;
+        }
+        return true;
+    }
+
+    private void markSeen(long hash) {
+        int h1 = (int) hash, h2 = (int) (hash >>> 32);
+        for (int i = 0; i < bloomHashes; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bloomBits);
+            bloom[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    // Delete the seen set, any segment files and the directory itself (unless other files are in it);
+    // the frontier is only valid for one crawl
+    @Override
+    public void close() throws IOException {
+        log.close();
+        Files.deleteIfExists(directory.resolve("seen.log"));
+        for (int number = 0; number < tableNumber; number++) {
+            Files.deleteIfExists(tableFile(number));
+        }
+        try (DirectoryStream<Path> spilled = Files.newDirectoryStream(directory, "segment-*.txt")) {
+            for (Path segment : spilled) {
+                Files.deleteIfExists(segment); // Also segments left behind by a failed load
+            }
+        }
+        segments.clear();
+        pendingOnDisk = 0;
+        try {
+            Files.deleteIfExists(directory);
+        } catch (DirectoryNotEmptyException e) {
+            // The directory also holds files that are not ours; leave it
+        }
+    }
+}
@@ -2,30 +2,41 @@
 Algorithm Description:
 
 1. **Class Definitions**:
-    - **CrawlerA** and **CrawlerB** are two classes that represent separate threads for downloading the content of a URL.
-    - Both classes extend `Thread` and override the `run()` method to start the crawling process for a given URL.
-
-2. **CrawlerA and CrawlerB Class Workflow**:
-    - Each class has a constructor that accepts a URL to crawl.
-    - Inside the `run()` method, the `downloadPage()` method is called, which:
-        - Opens a stream to the given URL using `BufferedReader` and `InputStreamReader`.
-        - Reads the content line by line and stores it in a `StringBuilder`.
-        - After reading the content, it calls `saveToFile()` to save the content into a text file, where the URL is sanitized (non-alphanumeric characters replaced with underscores) to create a valid file name.
-        - If successful, a message is printed indicating that the page was successfully crawled. In case of an exception, an error message is printed.
-        
-3. **Main Class - WebCrawler6b**:
-    - A list of URLs (`urls`) is defined with the URLs that need to be crawled.
-    - Instances of `CrawlerA` and `CrawlerB` are created for each URL.
-    - Both threads (`crawlerA` and `crawlerB`) are started using the `start()` method, which initiates the `run()` method in both threads.
-    
+    - **PageDownloader** downloads the content of a URL and saves it to a text file. It replaces the two identical thread classes `CrawlerA` and `CrawlerB`.
+    - **CrawlScheduler** decides which URL is fetched next, starts the fetch and handles the finished page on an executor.
+
+2. **PageDownloader Workflow**:
+    - One shared `java.net.http.HttpClient` sends every request, so connections are reused, and HTTP/2 is used when the server supports it.
+    - The `downloadPage()` method:
+        - Sends the request asynchronously with `Accept-Encoding: gzip` and returns a `CompletableFuture` of the saved file.
+        - Streams the body straight into the file with `BodyHandlers.ofFile`. The file is named after the host plus a SHA-256 hash of the URL, so different URLs never share a file and long URLs still give short names. The page never sits on the heap as a whole, and its bytes are stored exactly as sent, without any charset conversion.
+        - A gzip-compressed body is first saved next to the file and then decompressed into it through a `GZIPInputStream`.
+        - An older copy of the file is truncated, so the stored bytes always match the latest response exactly.
+        - Redirects are followed, and the future completes with the final URL as well as the file. Relative links on the page are resolved against that final URL.
+        - A response that is not 2xx fails the future, and its file is deleted.
+
+3. **CrawlScheduler - Frontier and Limits**:
+    - Discovered URLs go into a `UrlFrontier` (see UrlFrontier.java), which canonicalizes them, drops every URL it has seen before and spills pending URLs to disk when they exceed its memory budget.
+    - From there, at most `window` URLs at a time are moved into one queue of pending URLs per host, and a priority queue orders the hosts by the earliest time they may be contacted again.
+    - **Global concurrency limit**: at most `maxConcurrency` fetches are in flight at any time.
+    - **Per-host politeness**: at most `maxPerHost` fetches run against the same host at once, and two fetches to the same host start at least `hostDelayMillis` apart.
+    - **Depth limit**: links found on a page at depth d are added at depth d + 1, and only while d + 1 <= `maxDepth`. Every canonical URL is crawled at most once.
+    - One dispatcher loop (the thread that called `crawl()`) takes the next ready host from the priority queue, starts a fetch for its first URL, and waits on a condition while the limits do not allow another fetch. A finished fetch adds its links, frees its slots and wakes the dispatcher.
+    - Links are found by reading the saved file line by line, so large pages are scanned without loading them.
+
 4. **Thread Management**:
-    - The main thread waits for the completion of both threads (`crawlerA` and `crawlerB`) using `join()`. This ensures that the main program doesn’t terminate until both threads have finished their execution.
-    
-5. **Error Handling**:
-    - Exception handling is implemented to catch issues that might occur during the downloading or file saving process. Appropriate error messages are printed if something goes wrong during the process.
-    
-6. **Completion**:
-    - Once both threads have completed their execution, a message "Crawling finished!" is printed to indicate the successful completion of the crawling process.
+    - Fetches are asynchronous, so no thread waits for a response, and thousands of fetches can be in flight on a handful of threads.
+    - Finished pages are handled on virtual threads when the JVM has them (Java 21+, looked up by reflection). Older JVMs use a fixed pool with one platform thread per core instead.
+    - `crawl()` returns once the frontier is empty and no fetch is in flight.
+
+5. **Main Class - WebCrawler6b**:
+    - A list of URLs (`urls`) is defined with the URLs that need to be crawled, and they are handed to a `CrawlScheduler` as the seeds of the crawl.
+
+6. **Error Handling**:
+    - Exception handling is implemented to catch issues that might occur during the downloading or file saving process. Appropriate error messages are printed if something goes wrong during the process, and a failed page does not stop the crawl.
+
+7. **Completion**:
+    - Once the crawl has finished, a message "Crawling finished!" is printed to indicate the successful completion of the crawling process.
 */
 
 
@@ -33,93 +44,319 @@ Algorithm Description:
 
 
 import java.io.*;
+import java.lang.reflect.Method;
 import java.net.*;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+// Downloads content from a URL (shared by all crawl tasks)
+class PageDownloader {
+    private final Path directory; // Where pages are saved
+    private final HttpClient client = HttpClient.newBuilder() // One client, so connections are reused
+            .version(HttpClient.Version.HTTP_2) // Falls back to HTTP/1.1 if the server does not speak HTTP/2
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
 
-// Class A - Downloads content from a URL
-class CrawlerA extends Thread {
-    private String url; // URL to crawl
+    // A saved page together with the URL it was served from after redirects
+    static class SavedPage {
+        final URI uri; // Final URL; relative links on the page are relative to it
+        final Path file;
 
-    public CrawlerA(String url) {
-        this.url = url; // Assign URL
+        SavedPage(URI uri, Path file) {
+            this.uri = uri;
+            this.file = file;
+        }
     }
 
-    @Override
-    public void run() {
-        downloadPage(url); // Start downloading
+    public PageDownloader(Path directory) {
+        this.directory = directory; // Assign directory
     }
 
-    private void downloadPage(String urlString) {
-        try {
-            URL url = new URL(urlString); // Create URL object
-            BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream())); // Open stream
-            String line;
-            StringBuilder content = new StringBuilder(); // Store content
+    // Saves the page to a file and completes with it, or completes exceptionally if the page could not be crawled
+    public CompletableFuture<SavedPage> downloadPage(URI url) {
+        Path file = directory.resolve(fileName(url)); // Create filename
+        Path compressed = directory.resolve(file.getFileName() + ".gz"); // Body as sent, if it is gzip-compressed
+        HttpRequest request = HttpRequest.newBuilder(url)
+                .header("Accept-Encoding", "gzip")
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
 
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n"); // Read and append content
+        // Stream the body straight to disk, into `compressed` if the server compressed it. An older copy
+        // is truncated first, so none of its bytes remain after a shorter body.
+        HttpResponse.BodyHandler<Path> toFile = info -> HttpResponse.BodySubscribers.ofFile(isGzip(info) ? compressed : file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return client.sendAsync(request, toFile).thenApply(response -> {
+            try {
+                if (response.statusCode() / 100 != 2) {
+                    Files.deleteIfExists(response.body());
+                    throw new UncheckedIOException(new IOException("HTTP status " + response.statusCode()));
+                }
+                if (response.body().equals(compressed)) {
+                    try (InputStream in = new GZIPInputStream(Files.newInputStream(compressed))) {
+                        Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING); // Decompress in a streaming fashion
+                    } finally {
+                        Files.deleteIfExists(compressed);
+                    }
+                }
+                return new SavedPage(response.uri(), file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            reader.close(); // Close reader
-
-            saveToFile(urlString, content.toString()); // Save content to file
-            System.out.println("Crawled: " + urlString); // Print success message
-        } catch (Exception e) {
-            System.out.println("Failed to crawl: " + urlString + " - " + e.getMessage()); // Print error message
-        }
+        });
     }
 
-    private void saveToFile(String url, String content) {
+    // "<host>_<hash>.txt": the host keeps names readable, and the first 128 bits of the SHA-256 of the
+    // whole URL keep them apart. Replacing characters alone maps /a-b and /a_b to the same file.
+    static String fileName(URI url) {
+        String host = url.getHost() == null ? "page" : url.getHost().replaceAll("[^a-zA-Z0-9.-]", "_");
+        if (host.length() > 100) host = host.substring(0, 100); // Stay far below file name limits
+        byte[] digest;
         try {
-            String filename = url.replaceAll("[^a-zA-Z0-9]", "_") + ".txt"; // Create filename
-            BufferedWriter writer = new BufferedWriter(new FileWriter(filename)); // Open file writer
-            writer.write(content); // Write content to file
-            writer.close(); // Close writer
-        } catch (IOException e) {
-            System.out.println("Error saving file: " + e.getMessage()); // Print error message
+            digest = MessageDigest.getInstance("SHA-256").digest(url.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // Every JVM has SHA-256
+        }
+        StringBuilder name = new StringBuilder(host).append('_');
+        for (int i = 0; i < 16; i++) {
+            name.append(String.format("%02x", digest[i]));
         }
+        return name.append(".txt").toString();
+    }
+
+    private static boolean isGzip(HttpResponse.ResponseInfo info) {
+        return info.headers().firstValue("Content-Encoding").map(encoding -> encoding.equalsIgnoreCase("gzip")).orElse(false);
     }
 }
 
-// Class B - Another thread for downloading a different URL
-class CrawlerB extends Thread {
-    private String url; // URL to crawl
+// Frontier with global, per-host and depth limits; runs every fetch as its own task
+class CrawlScheduler {
+    private static final Pattern LINK = Pattern.compile("href\\s*=\\s*[\"']([^\"'#\\s]+)", Pattern.CASE_INSENSITIVE);
+
+    // A URL waiting in the frontier
+    private static class CrawlTask {
+        final URI url;
+        final int depth; // Links followed from a seed to reach this URL
+
+        CrawlTask(URI url, int depth) {
+            this.url = url;
+            this.depth = depth;
+        }
+    }
+
+    // Pending URLs and politeness state of one host
+    private static class Host {
+        final String name; // host:port
+        final ArrayDeque<CrawlTask> pending = new ArrayDeque<>();
+        int inFlight = 0; // Fetches running against this host
+        long nextStart = 0; // Earliest System.nanoTime() for the next fetch
+        boolean scheduled = false; // Waiting in readyHosts
 
-    public CrawlerB(String url) {
-        this.url = url; // Assign URL
+        Host(String name) {
+            this.name = name;
+        }
     }
 
-    @Override
-    public void run() {
-        downloadPage(url); // Start downloading
+    private final int maxConcurrency; // Fetches in flight over all hosts
+    private final int maxPerHost; // Fetches in flight per host
+    private final long hostDelayNanos; // Minimum time between two fetch starts on one host
+    private final int maxDepth; // Deepest link level that is still crawled
+    private final PageDownloader downloader;
+
+    private final ReentrantLock lock = new ReentrantLock(); // Guards everything below
+    private final Condition changed = lock.newCondition(); // Signalled when a fetch finishes or a URL is added
+    private final HashMap<String, Host> hosts = new HashMap<>();
+    private final PriorityQueue<Host> readyHosts = new PriorityQueue<>(Comparator.comparingLong((Host h) -> h.nextStart));
+    private final UrlFrontier frontier; // Seen URLs and URLs not yet in a host queue
+    private final int window; // Most URLs moved from the frontier into host queues
+    private int pending = 0; // URLs waiting in all host queues
+    private int inFlight = 0; // Fetches running
+    private int crawled = 0; // Pages fetched successfully
+    private int failed = 0; // Pages that could not be fetched
+
+    CrawlScheduler(int maxConcurrency, int maxPerHost, long hostDelayMillis, int maxDepth, PageDownloader downloader,
+                   UrlFrontier frontier) {
+        if (maxConcurrency <= 0 || maxPerHost <= 0) throw new IllegalArgumentException("Concurrency limits must be positive");
+        this.maxConcurrency = maxConcurrency;
+        this.maxPerHost = maxPerHost;
+        this.hostDelayNanos = TimeUnit.MILLISECONDS.toNanos(hostDelayMillis);
+        this.maxDepth = maxDepth;
+        this.downloader = downloader;
+        this.frontier = frontier;
+        this.window = Math.max(64, maxConcurrency * 16);
     }
 
-    private void downloadPage(String urlString) {
+    // Virtual threads when the JVM has them (Java 21+), otherwise one platform thread per core.
+    // Fetches themselves are asynchronous, so this only handles finished pages.
+    private static ExecutorService newExecutor() {
         try {
-            URL url = new URL(urlString); // Create URL object
-            BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream())); // Open stream
-            String line;
-            StringBuilder content = new StringBuilder(); // Store content
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
 
-            while ((line = reader.readLine()) != null) {
-                content.append(line).append("\n"); // Read and append content
+    // Crawl from the seed URLs until the frontier is empty. Returns the number of pages crawled.
+    int crawl(List<String> seeds) throws InterruptedException {
+        ExecutorService executor = newExecutor();
+        lock.lock();
+        try {
+            for (String seed : seeds) {
+                add(seed, null, 0);
+            }
+            while (pending > 0 || inFlight > 0) {
+                Host host = readyHosts.peek();
+                long wait = Long.MAX_VALUE; // Nanoseconds until something can start
+                if (host != null && inFlight < maxConcurrency) {
+                    wait = host.nextStart - System.nanoTime();
+                    if (wait <= 0) {
+                        readyHosts.poll();
+                        host.scheduled = false;
+                        start(host, executor);
+                        continue;
+                    }
+                }
+                if (wait == Long.MAX_VALUE) changed.await(); // Until a fetch finishes
+                else changed.awaitNanos(wait); // Until the host's politeness delay has passed
             }
-            reader.close(); // Close reader
+            return crawled;
+        } finally {
+            lock.unlock();
+            executor.shutdown();
+        }
+    }
 
-            saveToFile(urlString, content.toString()); // Save content to file
-            System.out.println("Crawled: " + urlString); // Print success message
-        } catch (Exception e) {
-            System.out.println("Failed to crawl: " + urlString + " - " + e.getMessage()); // Print error message
+    int failed() {
+        lock.lock();
+        try {
+            return failed;
+        } finally {
+            lock.unlock();
         }
     }
 
-    private void saveToFile(String url, String content) {
+    // Start a fetch for the first pending URL of the host. Caller holds the lock.
+    private void start(Host host, ExecutorService executor) {
+        CrawlTask task = host.pending.poll();
+        pending--;
+        refill();
+        host.inFlight++;
+        host.nextStart = System.nanoTime() + hostDelayNanos;
+        inFlight++;
+        schedule(host);
+        CompletableFuture<PageDownloader.SavedPage> download;
         try {
-            String filename = url.replaceAll("[^a-zA-Z0-9]", "_") + ".txt"; // Create filename
-            BufferedWriter writer = new BufferedWriter(new FileWriter(filename)); // Open file writer
-            writer.write(content); // Write content to file
-            writer.close(); // Close writer
-        } catch (IOException e) {
-            System.out.println("Error saving file: " + e.getMessage()); // Print error message
+            download = downloader.downloadPage(task.url);
+        } catch (RuntimeException e) { // A URL the client rejects before sending
+            download = CompletableFuture.failedFuture(e);
+        }
+        download.whenCompleteAsync((page, error) -> {
+            List<String> links = new ArrayList<>();
+            if (error == null && task.depth < maxDepth) {
+                try {
+                    readLinks(page.file, links);
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+            lock.lock();
+            try {
+                if (error == null) {
+                    for (String link : links) {
+                        add(link, page.uri, task.depth + 1); // Relative to where the page ended up after redirects
+                    }
+                }
+            } catch (RuntimeException e) { // The frontier could not store a link (UncheckedIOException)
+                error = e;
+            } finally {
+                // Always free the slots, or crawl() would wait for this fetch forever
+                if (error == null) crawled++;
+                else failed++;
+                host.inFlight--;
+                inFlight--;
+                schedule(host);
+                changed.signal();
+                lock.unlock();
+            }
+
+            if (error == null) {
+                System.out.println("Crawled: " + task.url); // Print success message
+            } else {
+                System.out.println("Failed to crawl: " + task.url + " - " + describe(error)); // Print error message
+            }
+        }, executor);
+    }
+
+    // Message of the underlying failure, without the CompletionException and UncheckedIOException wrappers
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof UncheckedIOException) cause = cause.getCause();
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    }
+
+    // Links of a saved page, read line by line. ISO-8859-1 maps every byte to one char, so any encoding scans safely.
+    private static void readLinks(Path file, List<String> links) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.ISO_8859_1)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Matcher matcher = LINK.matcher(line);
+                while (matcher.find()) {
+                    links.add(matcher.group(1));
+                }
+            }
+        }
+    }
+
+    // Add a URL (resolved against base if relative) to the frontier. Caller holds the lock.
+    private void add(String link, URI base, int depth) {
+        String url = UrlFrontier.canonicalize(link, base);
+        if (url == null) return; // Not a URL we can follow
+        if (frontier.add(url, depth)) refill();
+    }
+
+    // Move URLs from the frontier into the host queues until the window is full. Caller holds the lock.
+    private void refill() {
+        while (pending < window) {
+            UrlFrontier.Entry entry = frontier.poll();
+            if (entry == null) return;
+            URI url = URI.create(entry.url);
+            String name = url.getHost() + ":" + url.getPort();
+            Host host = hosts.computeIfAbsent(name, Host::new);
+            host.pending.add(new CrawlTask(url, entry.depth));
+            pending++;
+            schedule(host);
+            changed.signal();
+        }
+    }
+
+    // Put the host in the ready queue if it has work and a free slot. Caller holds the lock.
+    private void schedule(Host host) {
+        if (!host.scheduled && !host.pending.isEmpty() && host.inFlight < maxPerHost) {
+            host.scheduled = true;
+            readyHosts.add(host);
         }
     }
 }
@@ -132,20 +369,12 @@ public class WebCrawler6b {
                 "https://www.wikipedia.org" // Second URL
         );
 
-        // Creating threads for each URL
-        CrawlerA crawlerA = new CrawlerA(urls.get(0)); // Thread for first URL
-        CrawlerB crawlerB = new CrawlerB(urls.get(1)); // Thread for second URL
-
-        // Start threads
-        crawlerA.start(); // Start first thread
-        crawlerB.start(); // Start second thread
-
-        // Wait for threads to complete
-        try {
-            crawlerA.join(); // Wait for first thread
-            crawlerB.join(); // Wait for second thread
-        } catch (InterruptedException e) {
-            e.printStackTrace(); // Print error if interrupted
+        // Crawl both URLs: up to 64 fetches at once, one per host, 1 second apart, without following links
+        try (UrlFrontier frontier = new UrlFrontier(Files.createTempDirectory("crawl-frontier"), 1_000_000, 0.01, 100_000)) {
+            CrawlScheduler scheduler = new CrawlScheduler(64, 1, 1000, 0, new PageDownloader(Paths.get(".")), frontier);
+            scheduler.crawl(urls); // Wait for the crawl to complete
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace(); // Print error if interrupted or the frontier directory cannot be created
         }
 
         System.out.println("Crawling finished!"); // Print completion message